@@ -0,0 +1,70 @@
+package com.example.health.hospital_management.config;
+
+import com.example.health.hospital_management.services.ReferenceDataService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Backfills eva_doctors.department_id and specialization_id from the varchar department and specialization
+ * columns that doctors were stored with before, interning each distinct value. ddl-auto only adds the new
+ * columns, so without this existing doctors would lose both fields. Rows that already have an id are left
+ * alone, which makes it safe to run on every start; the old columns are kept until every facility is migrated.
+ */
+@Component
+@Slf4j
+public class DoctorReferenceMigration {
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataService referenceDataService;
+    private final FacilityProperties facilityProperties;
+
+    // The EntityManagerFactory is only taken so the schema update has added the id columns before this runs
+    public DoctorReferenceMigration(JdbcTemplate jdbcTemplate,
+                                    ReferenceDataService referenceDataService,
+                                    FacilityProperties facilityProperties,
+                                    EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataService = referenceDataService;
+        this.facilityProperties = facilityProperties;
+    }
+
+    @PostConstruct
+    void migrate() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                int departments = backfill("department", "department_id", referenceDataService::internDepartment);
+                int specializations = backfill("specialization", "specialization_id",
+                        referenceDataService::internSpecialization);
+                if (departments + specializations > 0) {
+                    log.info("Facility {}: backfilled {} doctor departments and {} specializations",
+                            facility, departments, specializations);
+                }
+                return null;
+            });
+        }
+    }
+
+    private int backfill(String oldColumn, String idColumn, ToIntFunction<String> intern) {
+        Integer exists = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_schema = DATABASE() AND table_name = 'eva_doctors' AND column_name = ?
+                """, Integer.class, oldColumn);
+        if (exists == null || exists == 0) {
+            return 0;
+        }
+        int updated = 0;
+        for (String name : jdbcTemplate.queryForList(
+                "SELECT DISTINCT " + oldColumn + " FROM eva_doctors WHERE " + idColumn + " IS NULL AND "
+                        + oldColumn + " IS NOT NULL AND TRIM(" + oldColumn + ") <> ''", String.class)) {
+            updated += jdbcTemplate.update(
+                    "UPDATE eva_doctors SET " + idColumn + " = ? WHERE " + idColumn + " IS NULL AND " + oldColumn + " = ?",
+                    intern.applyAsInt(name), name);
+        }
+        return updated;
+    }
+}
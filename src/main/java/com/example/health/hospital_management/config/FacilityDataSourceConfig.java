@@ -0,0 +1,124 @@
+package com.example.health.hospital_management.config;
+
+import com.example.health.hospital_management.utils.routing.ReplicatedDataSource;
+import com.example.health.hospital_management.utils.routing.ReplicationMonitor;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import com.example.health.hospital_management.utils.tenancy.FacilityIdentifierResolver;
+import com.example.health.hospital_management.utils.tenancy.FacilityRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One connection pool per facility database behind a routing DataSource, so a bulk load at one facility
+ * can only exhaust that facility's pool. The default pool is built from the usual spring.datasource settings.
+ * A facility with a read replica configured gets a {@link ReplicatedDataSource} in place of its bare pool.
+ */
+@Configuration
+@EnableConfigurationProperties({FacilityProperties.class, ReplicaProperties.class})
+public class FacilityDataSourceConfig {
+
+    @Bean
+    @Primary
+    public FacilityRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 FacilityProperties facilityProperties,
+                                 ReplicaProperties replicaProperties,
+                                 ReplicationMonitor replicationMonitor,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource defaultPool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        configure(defaultPool, FacilityContext.DEFAULT_FACILITY, facilityProperties.defaultPoolSize(), meterRegistry);
+
+        Map<String, HikariDataSource> pools = new HashMap<>();
+        pools.put(FacilityContext.DEFAULT_FACILITY, defaultPool);
+        facilityProperties.databases().forEach((facility, database) -> {
+            if (hasUrl(database)) {
+                pools.put(facility, pool(facility, database, meterRegistry));
+            }
+        });
+
+        Map<Object, Object> targets = new HashMap<>();
+        pools.forEach((facility, primary) -> {
+            FacilityProperties.Database replica = replicaProperties.databases().get(facility);
+            if (!hasUrl(replica)) {
+                targets.put(facility, primary);
+                return;
+            }
+            HikariDataSource replicaPool = pool(facility + "-replica", replica, meterRegistry);
+            replicaPool.setReadOnly(true);
+            ReplicatedDataSource replicated = new ReplicatedDataSource(primary, replicaPool,
+                    replicaProperties.maxLagMs(), replicaProperties.readYourWritesMs(), Clock.systemUTC());
+            replicationMonitor.register(facility, replicated);
+            targets.put(facility, replicated);
+        });
+
+        FacilityRoutingDataSource routing = new FacilityRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(FacilityContext.DEFAULT_FACILITY));
+        routing.setPrimaryPools(pools);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    public ReplicationMonitor replicationMonitor(MeterRegistry meterRegistry) {
+        return new ReplicationMonitor(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer facilityIdentifierResolver() {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new FacilityIdentifierResolver());
+    }
+
+    /*
+     * A doctor query read from a lagging replica would be cached as if current. Hibernate has one query cache for
+     * every facility, so it is switched off as soon as any facility reads from a replica. Entity cache puts stay
+     * safe because they are version-checked against what the primary's write already cached.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCacheWithoutReplicas(ReplicaProperties replicaProperties) {
+        return properties -> {
+            if (replicaProperties.databases().values().stream().anyMatch(FacilityDataSourceConfig::hasUrl)) {
+                properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            }
+        };
+    }
+
+    // Carries the facility onto the async executor that runs streamed and SSE responses
+    @Bean
+    public TaskDecorator facilityTaskDecorator() {
+        return FacilityContext::wrap;
+    }
+
+    private static boolean hasUrl(FacilityProperties.Database database) {
+        return database != null && database.url() != null && !database.url().isBlank();
+    }
+
+    private static HikariDataSource pool(String name, FacilityProperties.Database database, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(database.url());
+        pool.setUsername(database.username());
+        pool.setPassword(database.password());
+        configure(pool, name, database.maxPoolSize(), meterRegistry);
+        return pool;
+    }
+
+    private static void configure(HikariDataSource pool, String facility, int maxPoolSize, MeterRegistry meterRegistry) {
+        pool.setPoolName("facility-" + facility);
+        pool.setMaximumPoolSize(maxPoolSize);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.health.hospital_management.config;
+
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Facilities other than the default one. A facility with a url gets its own database and pool; one without
+ * shares the default database, separated by the facility column.
+ */
+@ConfigurationProperties(prefix = "facilities")
+public record FacilityProperties(
+        @DefaultValue("10") int defaultPoolSize,
+        @DefaultValue Map<String, Database> databases
+) {
+    public Set<String> names() {
+        Set<String> names = new TreeSet<>(databases.keySet());
+        names.add(FacilityContext.DEFAULT_FACILITY);
+        return names;
+    }
+
+    public record Database(
+            String url,
+            String username,
+            String password,
+            @DefaultValue("5") int maxPoolSize
+    ) {
+    }
+}
@@ -2,6 +2,7 @@ package com.example.health.hospital_management.config;
 
 import com.example.health.hospital_management.entities.UserCredential;
 import com.example.health.hospital_management.services.JwtService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +10,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,7 +20,6 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
 
     @Override
     protected void doFilterInternal(
@@ -39,7 +38,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String email;
+        final UserCredential userCredential;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -48,25 +47,29 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            email = jwtService.extractEmail(jwt);
+            // Signature and expiry are checked while parsing; access tokens are short-lived, so no DB lookup
+            userCredential = jwtService.parseUser(jwt);
         } catch (Exception e) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserCredential userCredential = (UserCredential) userDetailsService.loadUserByUsername(email);
-            if (jwtService.validateToken(jwt, userCredential)) {
-                var authToken = new UsernamePasswordAuthenticationToken(
-                        userCredential,
-                        null,
-                        userCredential.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        if (userCredential.getEmail() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            var authToken = new UsernamePasswordAuthenticationToken(
+                    userCredential,
+                    null,
+                    userCredential.getAuthorities()
+            );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
-        filterChain.doFilter(request, response);
+        // Routes this request's queries to the user's facility
+        FacilityContext.set(userCredential.getFacility());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            FacilityContext.clear();
+        }
     }
 }
\ No newline at end of file
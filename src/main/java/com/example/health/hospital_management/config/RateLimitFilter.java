@@ -0,0 +1,192 @@
+package com.example.health.hospital_management.config;
+
+import com.example.health.hospital_management.exceptions.dtos.ApiError;
+import com.example.health.hospital_management.utils.tenancy.FacilityRoutingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets plus coarse load shedding. Buckets use the generic cell rate algorithm,
+ * so each one is a single AtomicLong updated with CAS. Expensive endpoints (BCrypt logins, full table
+ * dumps) draw several tokens per call.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final ObjectMapper objectMapper;
+    private final FacilityRoutingDataSource dataSource;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final int maxInFlight;
+    private final int maxPendingConnections;
+    private final Counter throttled;
+    private final Counter shed;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           FacilityRoutingDataSource dataSource,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.tokens-per-second:20}") double tokensPerSecond,
+                           @Value("${rate-limit.burst:60}") int burst,
+                           @Value("${load-shedding.max-in-flight:200}") int maxInFlight,
+                           @Value("${load-shedding.max-pending-connections:20}") int maxPendingConnections) {
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+        this.burstNanos = nanosPerToken * burst;
+        this.maxInFlight = maxInFlight;
+        this.maxPendingConnections = maxPendingConnections;
+        this.throttled = Counter.builder("http.requests.throttled").register(meterRegistry);
+        this.shed = Counter.builder("http.requests.shed").register(meterRegistry);
+        Gauge.builder("http.requests.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        // Health checks must keep answering under load; the SSE feed holds its request open by design
+        return path.startsWith("/actuator/health") || path.equals("/api/v1/appointment/feed");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        long waitNanos = acquire(clientKey(request), cost(request));
+        if (waitNanos > 0) {
+            throttled.increment();
+            reject(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                    "Rate limit exceeded", TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            return;
+        }
+        if (overloaded()) {
+            shed.increment();
+            reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please retry shortly", 1);
+            return;
+        }
+        inFlight.incrementAndGet();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Streamed and SSE responses keep running after doFilter returns, so they count until they complete
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new InFlightListener());
+            } else {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    // onComplete also follows a timeout or an error, so it is the one place the request is counted out
+    private class InFlightListener implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        // Listeners are dropped when async processing is started again, so this one re-registers itself
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    // Returns 0 when the request may proceed, otherwise how long until enough tokens are available
+    private long acquire(String key, int cost) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        long increment = nanosPerToken * cost;
+        while (true) {
+            long now = System.nanoTime();
+            long theoreticalArrival = bucket.get();
+            long next = (theoreticalArrival - now > 0 ? theoreticalArrival : now) + increment;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private boolean overloaded() {
+        if (inFlight.get() >= maxInFlight) {
+            return true;
+        }
+        // Runs after JwtAuthFilter, so this is the pool of the caller's facility; each facility sheds on its own
+        var poolStats = dataSource.currentPool();
+        return poolStats != null && poolStats.getThreadsAwaitingConnection() >= maxPendingConnections;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static int cost(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (path.equals("/api/v1/auth/login") || path.equals("/api/v1/auth/register")) {
+            return 10;
+        }
+        if ("GET".equals(request.getMethod()) && (path.equals("/api/v1/appointment/")
+                || path.equals("/api/v1/patient/"))
+                && request.getQueryString() == null) {
+            return 5;
+        }
+        return 1;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        HttpStatus status, String message, long retryAfterSeconds) throws IOException {
+        ApiError apiError = new ApiError(request.getRequestURI(), message, status.value(), LocalDateTime.now());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), apiError);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    void evictIdleBuckets() {
+        // A bucket whose arrival time has passed is full again, so dropping it changes nothing
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now < 0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.health.hospital_management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Read replicas keyed by facility ("main" for the default database). Read-only transactions go to the
+ * replica while its lag is within maxLagMs and the user has not written in the last readYourWritesMs.
+ */
+@ConfigurationProperties(prefix = "replicas")
+public record ReplicaProperties(
+        @DefaultValue("5000") long maxLagMs,
+        @DefaultValue("5000") long readYourWritesMs,
+        @DefaultValue Map<String, FacilityProperties.Database> databases
+) {
+}
@@ -21,6 +21,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
@@ -30,11 +33,13 @@ public class SecurityConfig {
                         htp
                                 .requestMatchers("/api/v1/auth/**").permitAll()  // 👈 allow login/register
                                 .requestMatchers("/actuator/health").permitAll()  // 👈 allow health check
+                                .requestMatchers("/actuator/**").hasAuthority("ADMIN")  // metrics are for admins only
                                 .anyRequest().authenticated()                   // everything else requires token
                 )
                 .sessionManagement(ses -> ses.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class)  // 👈 runs once the caller is known
                 .build();
     }
 }
\ No newline at end of file
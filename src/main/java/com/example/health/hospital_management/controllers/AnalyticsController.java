@@ -0,0 +1,34 @@
+package com.example.health.hospital_management.controllers;
+
+import com.example.health.hospital_management.dtos.AppointmentReport;
+import com.example.health.hospital_management.services.AppointmentAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AppointmentAnalyticsService appointmentAnalyticsService;
+
+    // Defaults to the last 30 days
+    @GetMapping("/appointments")
+    public ResponseEntity<AppointmentReport> getAppointmentReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(30) : from;
+        return ResponseEntity.ok(appointmentAnalyticsService.report(start, end));
+    }
+
+    @PostMapping("/appointments/rebuild")
+    public ResponseEntity<Void> rebuildAppointmentRollups() {
+        appointmentAnalyticsService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
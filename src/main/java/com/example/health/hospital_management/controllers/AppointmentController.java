@@ -1,16 +1,27 @@
 package com.example.health.hospital_management.controllers;
 
 import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.dtos.AppointmentSearchPage;
+import com.example.health.hospital_management.dtos.AppointmentSearchRequest;
+import com.example.health.hospital_management.dtos.NormalizedAppointments;
 import com.example.health.hospital_management.dtos.PostNewAppointmentRequest;
 import com.example.health.hospital_management.dtos.UpdateAppointmentRequest;
 import com.example.health.hospital_management.entities.enums.HospitalRole;
+import com.example.health.hospital_management.services.AppointmentChangeFeed;
+import com.example.health.hospital_management.services.AppointmentSearchService;
 import com.example.health.hospital_management.services.AppointmentService;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.utils.streaming.StreamingCollectionWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/v1/appointment")
@@ -18,6 +29,10 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final AppointmentChangeFeed appointmentChangeFeed;
+    private final ResourceVersionService resourceVersionService;
+    private final StreamingCollectionWriter streamingCollectionWriter;
+    private final AppointmentSearchService appointmentSearchService;
 
     @PostMapping("/")
     public ResponseEntity<AppointmentInformation> createAppointment(
@@ -26,19 +41,71 @@ public class AppointmentController {
     }
 
     @GetMapping("/")
-    public ResponseEntity<List<AppointmentInformation>> getAppointments(
+    public ResponseEntity<?> getAppointments(
+            @RequestParam(required = false) Long id,
+            @RequestParam(required = false) HospitalRole role,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        // The tag covers the whole appointment table, so it is also valid for the filtered views of it
+        String eTag = resourceVersionService.appointmentsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        if (id != null && role != null) {
+            return ResponseEntity.ok().eTag(eTag).body(appointmentService.getAppointmentsById(id, role));
+        }
+        // If no parameters provided, stream all appointments instead of building the whole list
+        MediaType mediaType = streamingCollectionWriter.negotiate(accept);
+        StreamingResponseBody body = streamingCollectionWriter.stream(
+                mediaType, appointmentService::getAppointmentsAfter, AppointmentInformation::id);
+        return ResponseEntity.ok().eTag(eTag).contentType(mediaType).body(body);
+    }
+
+    // Same filters as above; serve as application/cbor when the client sends that Accept header
+    @GetMapping("/normalized")
+    public ResponseEntity<NormalizedAppointments> getAppointmentsNormalized(
             @RequestParam(required = false) Long id,
-            @RequestParam(required = false) HospitalRole role) {
+            @RequestParam(required = false) HospitalRole role,
+            WebRequest webRequest) {
+        String eTag = resourceVersionService.appointmentsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         if (id != null && role != null) {
-            return ResponseEntity.ok(appointmentService.getAppointmentsById(id, role));
+            return ResponseEntity.ok().eTag(eTag).body(appointmentService.getAppointmentsByIdNormalized(id, role));
         }
-        // If no parameters provided, return all appointments
-        return ResponseEntity.ok(appointmentService.getAllAppointments());
+        return ResponseEntity.ok().eTag(eTag).body(appointmentService.getAllAppointmentsNormalized());
+    }
+
+    // Pass nextCursor from the previous page as cursor to continue
+    @GetMapping("/search")
+    public ResponseEntity<AppointmentSearchPage> searchAppointments(
+            @ModelAttribute AppointmentSearchRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(appointmentSearchService.search(request, cursor, Math.clamp(size, 1, 500)));
+    }
+
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAppointmentChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) Long offset,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId) {
+        // Reconnecting EventSource clients send Last-Event-ID; it wins over the offset they started with
+        return appointmentChangeFeed.subscribe(lastEventId != null ? lastEventId : offset, doctorId, patientId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<AppointmentInformation> getAppointmentById(@PathVariable long id) {
-        return ResponseEntity.ok(appointmentService.getAppointmentById(id));
+    public ResponseEntity<AppointmentInformation> getAppointmentById(@PathVariable long id, WebRequest webRequest) {
+        String eTag = resourceVersionService.appointmentETag(id);
+        if (eTag == null) {
+            return ResponseEntity.ok(appointmentService.getAppointmentById(id));
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(appointmentService.getAppointmentById(id));
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,47 @@
+package com.example.health.hospital_management.controllers;
+
+import com.example.health.hospital_management.dtos.AppointmentSeriesInformation;
+import com.example.health.hospital_management.dtos.PostNewAppointmentSeriesRequest;
+import com.example.health.hospital_management.dtos.UpdateAppointmentSeriesRequest;
+import com.example.health.hospital_management.services.AppointmentSeriesService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/appointment/series")
+@RequiredArgsConstructor
+public class AppointmentSeriesController {
+
+    private final AppointmentSeriesService appointmentSeriesService;
+
+    @PostMapping("/")
+    public ResponseEntity<AppointmentSeriesInformation> createSeries(
+            @RequestBody @Valid PostNewAppointmentSeriesRequest request) {
+        return ResponseEntity.status(201).body(appointmentSeriesService.createSeries(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AppointmentSeriesInformation> getSeries(@PathVariable long id) {
+        return ResponseEntity.ok(appointmentSeriesService.getSeries(id));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<AppointmentSeriesInformation> updateSeries(
+            @PathVariable long id,
+            @RequestBody UpdateAppointmentSeriesRequest request) {
+        return ResponseEntity.ok(appointmentSeriesService.updateSeries(id, request));
+    }
+
+    // Cancels booked occurrences from the given date on (default today) and stops the series
+    @DeleteMapping("/{id}")
+    public ResponseEntity<AppointmentSeriesInformation> cancelSeries(
+            @PathVariable long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        return ResponseEntity.ok(appointmentSeriesService.cancelSeries(id, from));
+    }
+}
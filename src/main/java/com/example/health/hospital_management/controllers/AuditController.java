@@ -0,0 +1,26 @@
+package com.example.health.hospital_management.controllers;
+
+import com.example.health.hospital_management.dtos.AuditLogInformation;
+import com.example.health.hospital_management.services.AuditLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/audit")
+@RequiredArgsConstructor
+public class AuditController {
+
+    private final AuditLogService auditLogService;
+
+    // entityType is Patient, Doctor or Appointment; newest changes first
+    @GetMapping("/{entityType}/{id}")
+    public ResponseEntity<List<AuditLogInformation>> getHistory(
+            @PathVariable String entityType,
+            @PathVariable long id,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(auditLogService.getHistory(entityType, id, Math.clamp(limit, 1, 1000)));
+    }
+}
@@ -4,13 +4,19 @@ import com.example.health.hospital_management.dtos.DoctorInformation;
 import com.example.health.hospital_management.dtos.PostNewDoctorRequest;
 import com.example.health.hospital_management.dtos.UpdateDoctorRequest;
 import com.example.health.hospital_management.services.DoctorService;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.utils.cache.SerializedResponseCache;
+import com.example.health.hospital_management.utils.streaming.StreamingCollectionWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -21,15 +27,47 @@ import java.util.List;
 @RequestMapping("/api/v1/doctor")
 public class DoctorController {
     private final DoctorService doctorService;
+    private final ResourceVersionService resourceVersionService;
+    private final SerializedResponseCache serializedResponseCache;
+    private final StreamingCollectionWriter streamingCollectionWriter;
 
     @GetMapping("/")
-    public ResponseEntity<List<DoctorInformation>> getAllDoctors() {
-        return new ResponseEntity<>(doctorService.getAllDoctors(), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getAllDoctors(WebRequest webRequest) {
+        String eTag = resourceVersionService.doctorsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        byte[] cached = serializedResponseCache.getIfPresent(SerializedResponseCache.DOCTOR_DIRECTORY);
+        if (cached != null) {
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> outputStream.write(cached));
+        }
+        // Stream from the database and keep a copy for the next caller if the directory is small enough
+        StreamingResponseBody body = streamingCollectionWriter.stream(
+                MediaType.APPLICATION_JSON, doctorService::getDoctorsAfter, DoctorInformation::id);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    SerializedResponseCache.Capture capture = serializedResponseCache.capture(
+                            SerializedResponseCache.DOCTOR_DIRECTORY, outputStream);
+                    body.writeTo(capture);
+                    capture.commit();
+                });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<DoctorInformation> getDoctorById(@PathVariable long id) {
-        return ResponseEntity.ok(doctorService.getDoctorById(id));
+    public ResponseEntity<DoctorInformation> getDoctorById(@PathVariable long id, WebRequest webRequest) {
+        String eTag = resourceVersionService.doctorETag(id);
+        if (eTag == null) {
+            return ResponseEntity.ok(doctorService.getDoctorById(id));
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(doctorService.getDoctorById(id));
     }
 
     @PostMapping("/")
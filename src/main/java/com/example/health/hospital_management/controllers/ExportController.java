@@ -0,0 +1,58 @@
+package com.example.health.hospital_management.controllers;
+
+import com.example.health.hospital_management.services.ExportService;
+import com.example.health.hospital_management.utils.export.ExportFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/appointments")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long doctorId) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return download("appointments", exportFormat, gzip,
+                exportService.exportAppointments(exportFormat, gzip, from, to, doctorId));
+    }
+
+    // from/to filter on registration date, doctorId on primary doctor
+    @GetMapping("/patients")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long doctorId) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return download("patients", exportFormat, gzip,
+                exportService.exportPatients(exportFormat, gzip, from, to, doctorId));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(String name, ExportFormat format, boolean gzip,
+                                                                  StreamingResponseBody body) {
+        // A gzip file rather than Content-Encoding, so it is saved compressed and not recompressed by the server
+        String filename = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.valueOf("application/gzip") : MediaType.valueOf(format.getContentType());
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
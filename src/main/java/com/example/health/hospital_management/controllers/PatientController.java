@@ -1,15 +1,28 @@
 package com.example.health.hospital_management.controllers;
 
+import com.example.health.hospital_management.dtos.AllergyCohort;
 import com.example.health.hospital_management.dtos.PatientInformation;
+import com.example.health.hospital_management.dtos.PatientTimeline;
 import com.example.health.hospital_management.dtos.PostNewPatientRequest;
 import com.example.health.hospital_management.dtos.UpdatePatientRequest;
+import com.example.health.hospital_management.services.AllergyIndexService;
+import com.example.health.hospital_management.services.PatientTimelineService;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.utils.cache.SerializedResponseCache;
+import com.example.health.hospital_management.utils.streaming.StreamingCollectionWriter;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import com.example.health.hospital_management.services.PatientService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/patient")
@@ -17,15 +30,62 @@ import java.util.List;
 public class PatientController {
 
     private final PatientService patientService;
+    private final ResourceVersionService resourceVersionService;
+    private final SerializedResponseCache serializedResponseCache;
+    private final StreamingCollectionWriter streamingCollectionWriter;
+    private final PatientTimelineService patientTimelineService;
+    private final AllergyIndexService allergyIndexService;
 
     @GetMapping("/")
-    public ResponseEntity<List<PatientInformation>> getPatientsIndex() {
-        return ResponseEntity.ok(patientService.getAllPatients());
+    public ResponseEntity<StreamingResponseBody> getPatientsIndex(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        String eTag = resourceVersionService.patientsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        MediaType mediaType = streamingCollectionWriter.negotiate(accept);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(mediaType)
+                .body(streamingCollectionWriter.stream(mediaType, patientService::getPatientsAfter, PatientInformation::id));
+    }
+
+    @GetMapping("/cohort")
+    public ResponseEntity<AllergyCohort> getAllergyCohort(
+            @RequestParam(required = false) List<String> allOf,
+            @RequestParam(required = false) List<String> anyOf,
+            @RequestParam(required = false) List<String> noneOf,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(allergyIndexService.findCohort(allOf, anyOf, noneOf, limit));
+    }
+
+    @GetMapping("/allergies")
+    public ResponseEntity<Map<String, Long>> getAllergyCounts() {
+        return ResponseEntity.ok(allergyIndexService.getAllergyCounts());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PatientInformation> getPatientById(@PathVariable long id) {
-        return ResponseEntity.ok(patientService.getPatientById(id));
+    public ResponseEntity<byte[]> getPatientById(@PathVariable long id, WebRequest webRequest) {
+        String eTag = resourceVersionService.patientETag(id);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        byte[] body = serializedResponseCache.getOrSerialize(
+                SerializedResponseCache.patientKey(id), () -> patientService.getPatientById(id));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<PatientTimeline> getPatientTimeline(
+            @PathVariable long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(patientTimelineService.getTimeline(id, page, size));
     }
 
     @PostMapping("/add-patient")
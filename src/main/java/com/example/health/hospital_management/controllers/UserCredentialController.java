@@ -1,19 +1,33 @@
 package com.example.health.hospital_management.controllers;
 
 import com.example.health.hospital_management.dtos.AuthRequest;
+import com.example.health.hospital_management.dtos.AuthTokens;
 import com.example.health.hospital_management.dtos.UserInformation;
 import com.example.health.hospital_management.services.UserCredentialService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
 public class UserCredentialController {
+    private static final String REFRESH_COOKIE = "refresh_token";
+
     private final UserCredentialService userCredentialService;
 
+    @Value("${jwt.refresh.session-timeout-ms:2592000000}")
+    private long refreshCookieMaxAge;
+
+    @Value("${jwt.refresh.cookie-secure:false}")
+    private boolean refreshCookieSecure;
+
     @PostMapping("/register")
     public ResponseEntity<UserInformation> register(@Valid @RequestBody AuthRequest authRequest) {
         return ResponseEntity.ok(userCredentialService.createUserCredentials(authRequest));
@@ -21,6 +35,36 @@ public class UserCredentialController {
 
     @PostMapping("/login")
     public ResponseEntity<String> login(@Valid @RequestBody AuthRequest request) {
-        return ResponseEntity.ok(userCredentialService.login(request));
+        AuthTokens tokens = userCredentialService.login(request);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(tokens.refreshToken(), refreshCookieMaxAge).toString())
+                .body(tokens.accessToken());
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken) {
+        AuthTokens tokens = userCredentialService.refresh(refreshToken);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(tokens.refreshToken(), refreshCookieMaxAge).toString())
+                .body(tokens.accessToken());
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken) {
+        userCredentialService.logout(refreshToken);
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, refreshCookie("", 0).toString())
+                .build();
+    }
+
+    // HttpOnly and scoped to the auth endpoints, so scripts never see it and other API calls don't carry it
+    private ResponseCookie refreshCookie(String value, long maxAgeMillis) {
+        return ResponseCookie.from(REFRESH_COOKIE, value)
+                .httpOnly(true)
+                .secure(refreshCookieSecure)
+                .sameSite("Lax")
+                .path("/api/v1/auth")
+                .maxAge(Duration.ofMillis(maxAgeMillis))
+                .build();
     }
 }
\ No newline at end of file
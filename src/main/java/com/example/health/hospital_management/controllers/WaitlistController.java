@@ -0,0 +1,32 @@
+package com.example.health.hospital_management.controllers;
+
+import com.example.health.hospital_management.dtos.JoinWaitlistRequest;
+import com.example.health.hospital_management.dtos.WaitlistInformation;
+import com.example.health.hospital_management.services.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/waitlist")
+@RequiredArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    @PostMapping("/")
+    public ResponseEntity<WaitlistInformation> join(@RequestBody @Valid JoinWaitlistRequest request) {
+        return ResponseEntity.status(201).body(waitlistService.join(request));
+    }
+
+    @GetMapping("/{patientId}")
+    public ResponseEntity<WaitlistInformation> getEntry(@PathVariable long patientId) {
+        return ResponseEntity.ok(waitlistService.getEntry(patientId));
+    }
+
+    @DeleteMapping("/{patientId}")
+    public ResponseEntity<WaitlistInformation> withdraw(@PathVariable long patientId) {
+        return ResponseEntity.ok(waitlistService.withdraw(patientId));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.health.hospital_management.dtos;
+
+/**
+ * Size of an allergy cohort and the first patient ids in it, in ascending order.
+ */
+public record AllergyCohort(
+        long count,
+        long[] patientIds
+) {
+}
@@ -0,0 +1,23 @@
+package com.example.health.hospital_management.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+public record AppointmentChangeEvent(
+        long offset,
+        Type type,
+        long appointmentId,
+        long patientId,
+        long doctorId,
+        AppointmentInformation appointment,
+        Instant occurredAt,
+        // Only subscribers at the same facility see the event
+        @JsonIgnore String facility
+) {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        CANCELLED
+    }
+}
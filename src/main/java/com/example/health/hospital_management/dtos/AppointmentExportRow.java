@@ -0,0 +1,21 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Flat projection read straight from the export cursor; never a managed entity
+public record AppointmentExportRow(
+        long id,
+        LocalDate date,
+        LocalTime time,
+        Status status,
+        long patientId,
+        String patientFirstName,
+        String patientLastName,
+        Long doctorId,
+        String doctorFirstName,
+        String doctorLastName
+) {
+}
@@ -0,0 +1,16 @@
+package com.example.health.hospital_management.dtos;
+
+import java.time.LocalDateTime;
+
+public record AppointmentReminder(
+        long appointmentId,
+        Type type,
+        LocalDateTime appointmentAt
+) {
+    public enum Type {
+        // Sent ahead of the appointment
+        REMINDER,
+        // The appointment is past its grace period and still BOOKED
+        NO_SHOW
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.health.hospital_management.dtos;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointment counts for a date range. Booked appointments on days already past count as no-shows;
+ * the no-show rate is taken over past appointments that were not cancelled.
+ */
+public record AppointmentReport(
+        LocalDate from,
+        LocalDate to,
+        Counts totals,
+        double cancellationRate,
+        double noShowRate,
+        List<DoctorRow> byDoctor,
+        Map<String, Counts> byDepartment,
+        Map<LocalDate, Counts> byDay
+) {
+    public record Counts(
+            long total,
+            long booked,
+            long completed,
+            long cancelled,
+            long noShows
+    ) {
+    }
+
+    public record DoctorRow(
+            long doctorId,
+            String name,
+            String department,
+            Counts counts
+    ) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * One page of search results in (date, id) order. nextCursor is null on the last page. The estimate is only
+ * computed for the first page and comes from the analytics rollup or the database's query plan, never an
+ * exact COUNT(*).
+ */
+public record AppointmentSearchPage(
+        List<Row> items,
+        String nextCursor,
+        Long estimatedTotal,
+        String estimateSource,
+        String index
+) {
+    public record Row(
+            long id,
+            LocalDate date,
+            LocalTime time,
+            Status status,
+            long patientId,
+            String patientFirstName,
+            String patientLastName,
+            Long doctorId,
+            String doctorFirstName,
+            String doctorLastName
+    ) {
+    }
+}
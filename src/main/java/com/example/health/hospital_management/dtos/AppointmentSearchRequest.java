@@ -0,0 +1,20 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Status;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Every filter is optional and they combine with AND; dates and times of day are inclusive
+public record AppointmentSearchRequest(
+        Long doctorId,
+        Long patientId,
+        String department,
+        Status status,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime timeTo
+) {
+}
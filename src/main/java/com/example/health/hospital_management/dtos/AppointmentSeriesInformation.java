@@ -0,0 +1,22 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Recurrence;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record AppointmentSeriesInformation(
+        long id,
+        PatientInformation patient,
+        DoctorInformation doctor,
+        Recurrence recurrence,
+        int repeatEvery,
+        LocalDate startDate,
+        LocalTime time,
+        LocalDate endDate,
+        Integer maxOccurrences,
+        LocalDate materializedThrough,
+        boolean active,
+        int occurrencesAffected
+) {
+}
@@ -0,0 +1,16 @@
+package com.example.health.hospital_management.dtos;
+
+import java.time.Instant;
+
+public record AuditLogInformation(
+        long id,
+        String entityType,
+        long entityId,
+        String action,
+        String fieldName,
+        String oldValue,
+        String newValue,
+        String changedBy,
+        Instant changedAt
+) {
+}
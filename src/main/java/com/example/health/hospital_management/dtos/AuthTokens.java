@@ -0,0 +1,7 @@
+package com.example.health.hospital_management.dtos;
+
+public record AuthTokens(
+        String accessToken,
+        String refreshToken
+) {
+}
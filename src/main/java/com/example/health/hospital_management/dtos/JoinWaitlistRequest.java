@@ -0,0 +1,20 @@
+package com.example.health.hospital_management.dtos;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+
+import java.time.LocalDate;
+
+// Give either doctorId or department; wantedBefore limits offers to slots earlier than that date
+public record JoinWaitlistRequest(
+        @Positive(message = "Patient id is required")
+        long patientId,
+        Long doctorId,
+        String department,
+        @Min(value = 0, message = "Priority must be between 0 and 10")
+        @Max(value = 10, message = "Priority must be between 0 and 10")
+        int priority,
+        LocalDate wantedBefore
+) {
+}
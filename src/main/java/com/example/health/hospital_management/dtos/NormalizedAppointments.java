@@ -0,0 +1,28 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Appointments with their patients and doctors sent once each and referenced by id,
+ * instead of being repeated inside every appointment.
+ */
+public record NormalizedAppointments(
+        List<AppointmentRow> appointments,
+        Collection<PatientInformation> patients,
+        Collection<DoctorInformation> doctors
+) {
+    public record AppointmentRow(
+            long id,
+            long patientId,
+            long doctorId,
+            LocalDate date,
+            LocalTime time,
+            Status status
+    ) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.BiologicalSex;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One row per patient and allergy (allergy is null when there are none), in patient id order
+public record PatientExportRow(
+        long id,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        BiologicalSex biologicalSex,
+        String phoneNumber,
+        String address,
+        Long primaryDoctorId,
+        LocalDateTime createdAt,
+        String allergy
+) {
+}
@@ -0,0 +1,29 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Everything a patient chart needs in one response: the patient with allergies, the primary doctor,
+ * and one page of appointments, newest first. Doctors inside the timeline are sent without patient lists.
+ */
+public record PatientTimeline(
+        PatientInformation patient,
+        DoctorInformation primaryDoctor,
+        List<TimelineEntry> appointments,
+        int page,
+        int size,
+        long totalAppointments
+) {
+    public record TimelineEntry(
+            long id,
+            DoctorInformation doctor,
+            LocalDate date,
+            LocalTime time,
+            Status status
+    ) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.health.hospital_management.dtos;
+
+import com.example.health.hospital_management.entities.enums.Recurrence;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// endDate and occurrences are both optional; without either the series runs until cancelled
+public record PostNewAppointmentSeriesRequest(
+        long patientId,
+        long doctorId,
+        @NotNull(message = "Recurrence is required")
+        Recurrence recurrence,
+        @Min(value = 1, message = "Repeat interval must be between 1 and 12")
+        @Max(value = 12, message = "Repeat interval must be between 1 and 12")
+        int repeatEvery,
+        @NotNull(message = "Start date is required")
+        @FutureOrPresent(message = "Start date must be today or later")
+        LocalDate startDate,
+        @NotNull(message = "Time is required")
+        LocalTime time,
+        LocalDate endDate,
+        @Min(value = 1, message = "Occurrences must be at least 1")
+        Integer occurrences
+) {
+}
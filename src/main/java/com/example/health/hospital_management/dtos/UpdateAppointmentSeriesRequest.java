@@ -0,0 +1,12 @@
+package com.example.health.hospital_management.dtos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Applies to booked occurrences from effectiveFrom (default today) on; null fields are left as they are
+public record UpdateAppointmentSeriesRequest(
+        Long doctorId,
+        LocalTime time,
+        LocalDate effectiveFrom
+) {
+}
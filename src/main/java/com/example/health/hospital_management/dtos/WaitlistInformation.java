@@ -0,0 +1,17 @@
+package com.example.health.hospital_management.dtos;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record WaitlistInformation(
+        long id,
+        long patientId,
+        Long doctorId,
+        String department,
+        int priority,
+        LocalDate wantedBefore,
+        Instant requestedAt,
+        String status,
+        Long matchedAppointmentId
+) {
+}
@@ -0,0 +1,22 @@
+package com.example.health.hospital_management.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "eva_allergies")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Allergy {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name;
+}
@@ -7,17 +7,26 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+@EqualsAndHashCode(callSuper = true)
 @Entity
 @Data
-@Table(name = "eva_appointments")
+// The date indexes back the search API, see AppointmentQueryPlanner
+@Table(name = "eva_appointments", indexes = {
+        @Index(name = "idx_appointments_series", columnList = "seriesId"),
+        @Index(name = "idx_appointments_patient_date", columnList = "patientId, date"),
+        @Index(name = "idx_appointments_doctor_date", columnList = "doctorId, date"),
+        @Index(name = "idx_appointments_status_date", columnList = "facility, status, date"),
+        @Index(name = "idx_appointments_date", columnList = "facility, date")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class Appointment {
+public class Appointment extends FacilityScopedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -30,4 +39,6 @@ public class Appointment {
     private LocalDate date;
     private LocalTime time;
     private Status status;
+    // Set on occurrences of a recurring series; those are edited and cancelled together
+    private Long seriesId;
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.health.hospital_management.entities;
+
+import com.example.health.hospital_management.entities.enums.Recurrence;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Occurrences are eva_appointments rows carrying this series' id, created a rolling horizon ahead
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Data
+@Table(name = "eva_appointment_series")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AppointmentSeries extends FacilityScopedEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    @ManyToOne
+    @JoinColumn(name = "patientId")
+    private Patient patient;
+    @ManyToOne
+    @JoinColumn(name = "doctorId")
+    private Doctor doctor;
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Recurrence recurrence;
+    // Every n weeks or months
+    @Column(nullable = false)
+    private int repeatEvery;
+    @Column(nullable = false)
+    private LocalDate startDate;
+    @Column(nullable = false)
+    private LocalTime time;
+    private LocalDate endDate;
+    private Integer maxOccurrences;
+    // Index of the next occurrence to create, and the date created up to
+    private int materializedCount;
+    private LocalDate materializedThrough;
+    private boolean active;
+}
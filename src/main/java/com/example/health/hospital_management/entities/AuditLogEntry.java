@@ -0,0 +1,53 @@
+package com.example.health.hospital_management.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Append-only: rows are inserted in batches by AuditLogService and never updated
+@Entity
+@Table(name = "eva_audit_log", indexes = @Index(name = "idx_audit_entity", columnList = "facility, entityType, entityId"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuditLogEntry {
+    public enum Action { INSERT, UPDATE, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    // Written to the facility's own database, like the entity it describes
+    @Column(nullable = false, length = 32)
+    private String facility;
+
+    @Column(nullable = false, length = 30)
+    private String entityType;
+
+    @Column(nullable = false)
+    private long entityId;
+
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Action action;
+
+    @Column(length = 100)
+    private String fieldName;
+
+    @Column(length = 1000)
+    private String oldValue;
+
+    @Column(length = 1000)
+    private String newValue;
+
+    @Column(nullable = false, length = 150)
+    private String changedBy;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
@@ -1,16 +1,22 @@
 package com.example.health.hospital_management.entities;
 
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+import lombok.Getter;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @MappedSuperclass
+@Getter
 public abstract class AuditableEntity {
     // Common auditing fields can be added here, e.g., createdAt, updatedAt, createdBy, updatedBy
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    // Bumped by Hibernate on every update; backs the per-entity ETags
+    @Version
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.example.health.hospital_management.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Bumped in the same transaction as every write to the collection, so all instances see the same version
+@Entity
+@Table(name = "eva_collection_versions")
+@IdClass(CollectionVersion.Key.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CollectionVersion {
+    @Id
+    @Column(length = 32)
+    private String facility;
+
+    @Id
+    @Column(length = 30)
+    private String collection;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String facility;
+        private String collection;
+    }
+}
@@ -1,25 +1,39 @@
 package com.example.health.hospital_management.entities;
 
+import com.example.health.hospital_management.utils.converters.DepartmentConverter;
+import com.example.health.hospital_management.utils.converters.SpecializationConverter;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
+// Loaded as an association from every appointment and patient; read-write so updates replace the cached copy
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "eva_doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Doctor.CACHE_REGION)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class Doctor extends AuditableEntity{
+public class Doctor extends FacilityScopedEntity {
+    public static final String CACHE_REGION = "doctors";
+    public static final String QUERY_CACHE_REGION = "doctor-queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
     private   String firstName;
     private   String lastName;
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private   String department;
     private   String phone;
+    @Convert(converter = SpecializationConverter.class)
+    @Column(name = "specialization_id")
     private   String specialization;
     private   String email;
 
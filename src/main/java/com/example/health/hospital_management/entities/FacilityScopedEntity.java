@@ -0,0 +1,18 @@
+package com.example.health.hospital_management.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Getter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+@MappedSuperclass
+@Getter
+public abstract class FacilityScopedEntity extends AuditableEntity {
+    // Filled on insert and added to every query by Hibernate from FacilityContext; rows from before
+    // facilities existed belong to the default one
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 32)
+    private String facility;
+}
@@ -18,7 +18,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class Patient extends AuditableEntity {
+public class Patient extends FacilityScopedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -61,6 +61,6 @@ public class Patient extends AuditableEntity {
     @ManyToOne
     private Doctor primaryDoctor;
 
-    @OneToMany(mappedBy = "patient", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "patient")
     private List<Appointment> appointments;
 }
\ No newline at end of file
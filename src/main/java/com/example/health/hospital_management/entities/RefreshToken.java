@@ -0,0 +1,31 @@
+package com.example.health.hospital_management.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "eva_refresh_tokens", indexes = @Index(columnList = "expiresAt"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RefreshToken {
+    // SHA-256 of the token, base64url encoded; the raw token is never stored
+    @Id
+    @Column(length = 43)
+    private String tokenHash;
+    @Column(nullable = false)
+    private String email;
+    @Column(nullable = false, length = 22)
+    private String familyId;
+    @Column(nullable = false)
+    private Instant expiresAt;
+    @Column(nullable = false)
+    private Instant sessionExpiresAt;
+    private boolean revoked;
+}
@@ -1,9 +1,12 @@
 package com.example.health.hospital_management.entities;
 
 import com.example.health.hospital_management.entities.enums.HospitalRole;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,6 +25,11 @@ public class UserCredential extends AuditableEntity implements UserDetails {
     private String email;
     private String password;
     private HospitalRole role;
+    // Credentials stay in the default database; this picks the facility the user's requests are routed to
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 32)
+    @Builder.Default
+    private String facility = FacilityContext.DEFAULT_FACILITY;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,51 @@
+package com.example.health.hospital_management.entities;
+
+import com.example.health.hospital_management.utils.converters.DepartmentConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Only WAITING rows are loaded into the in-memory board; the rest are kept as history
+@Entity
+@Table(name = "eva_waitlist", indexes = @Index(name = "idx_waitlist_status", columnList = "status"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WaitlistEntry {
+    public enum State { WAITING, MATCHED, WITHDRAWN }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false)
+    private long patientId;
+
+    private Long doctorId;
+
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
+    private String department;
+
+    @Column(nullable = false)
+    private int priority;
+
+    private LocalDate wantedBefore;
+
+    @Column(nullable = false)
+    private Instant requestedAt;
+
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private State status;
+
+    private Long matchedAppointmentId;
+
+    private Instant closedAt;
+}
@@ -0,0 +1,20 @@
+package com.example.health.hospital_management.entities.enums;
+
+import java.time.LocalDate;
+
+public enum Recurrence {
+    WEEKLY("Weekly"),
+    MONTHLY("Monthly");
+    private final String displayName;
+
+    Recurrence(String displayName) {this.displayName = displayName;}
+    public  String getDisplayName() {return displayName;}
+
+    // Counted from the start date each time, so a series starting on the 31st keeps to month ends
+    public LocalDate occurrence(LocalDate start, int every, int index) {
+        return switch (this) {
+            case WEEKLY -> start.plusWeeks((long) every * index);
+            case MONTHLY -> start.plusMonths((long) every * index);
+        };
+    }
+}
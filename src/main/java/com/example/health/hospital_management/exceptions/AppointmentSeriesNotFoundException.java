@@ -0,0 +1,7 @@
+package com.example.health.hospital_management.exceptions;
+
+public class AppointmentSeriesNotFoundException extends RuntimeException {
+    public AppointmentSeriesNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.health.hospital_management.exceptions;
+
+public class SchedulingConflictException extends RuntimeException {
+    public SchedulingConflictException(String message) {
+        super(message);
+    }
+}
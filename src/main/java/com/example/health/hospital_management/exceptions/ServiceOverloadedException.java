@@ -0,0 +1,7 @@
+package com.example.health.hospital_management.exceptions;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
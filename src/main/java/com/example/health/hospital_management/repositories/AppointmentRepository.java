@@ -1,10 +1,28 @@
 package com.example.health.hospital_management.repositories;
 
+import com.example.health.hospital_management.dtos.AppointmentExportRow;
 import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.Doctor;
 import com.example.health.hospital_management.entities.enums.Status;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 public interface AppointmentRepository extends JpaRepository<Appointment,Long> {
@@ -12,5 +30,123 @@ public interface AppointmentRepository extends JpaRepository<Appointment,Long> {
     List<Appointment> findAllByStatusOrderByDateAsc(Status status);
     List<Appointment> findAllByPatientId(long id);
     List<Appointment> findAllByDoctorId(long id);
+    List<Appointment> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+    long countByPatientId(long patientId);
+
+    @Query("""
+           SELECT a FROM Appointment a
+           JOIN FETCH a.patient
+           LEFT JOIN FETCH a.doctor
+           WHERE a.patient.id = :patientId
+           ORDER BY a.date DESC, a.time DESC, a.id DESC
+           """)
+    List<Appointment> findTimelineByPatientId(@Param("patientId") long patientId, Pageable pageable);
+
+    interface DailyCount {
+        Long getDoctorId();
+        LocalDate getDate();
+        Status getStatus();
+        long getCount();
+    }
+
+    interface ScheduledSlot {
+        long getId();
+        LocalDate getDate();
+        LocalTime getTime();
+    }
+
+    // A few days of bookings at most, unlike findAllByStatusOrderByDateAsc which returns every one ever made
+    @Query("""
+           SELECT a.id AS id, a.date AS date, a.time AS time FROM Appointment a
+           WHERE a.status = :status AND a.date BETWEEN :from AND :to AND a.time IS NOT NULL
+           """)
+    List<ScheduledSlot> findSlotsByStatusAndDateBetween(@Param("status") Status status,
+                                                        @Param("from") LocalDate from,
+                                                        @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM Appointment a")
+    long findMaxId();
+
+    @Query("""
+           SELECT a.doctor.id AS doctorId, a.date AS date, a.status AS status, COUNT(a) AS count
+           FROM Appointment a
+           WHERE a.id > :fromId AND a.id <= :toId AND a.date IS NOT NULL AND a.status IS NOT NULL
+           GROUP BY a.doctor.id, a.date, a.status
+           """)
+    List<DailyCount> countByDoctorDateAndStatus(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows over a forward-only cursor instead of buffering them
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+           SELECT new com.example.health.hospital_management.dtos.AppointmentExportRow(
+               a.id, a.date, a.time, a.status, p.id, p.firstName, p.lastName, d.id, d.firstName, d.lastName)
+           FROM Appointment a
+           JOIN a.patient p
+           LEFT JOIN a.doctor d
+           WHERE (:from IS NULL OR a.date >= :from)
+             AND (:to IS NULL OR a.date <= :to)
+             AND (:doctorId IS NULL OR d.id = :doctorId)
+           ORDER BY a.id
+           """)
+    Stream<AppointmentExportRow> streamForExport(@Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to,
+                                                 @Param("doctorId") Long doctorId);
+
+    interface SeriesOccurrence {
+        long getId();
+        long getDoctorId();
+        LocalDate getDate();
+        LocalTime getTime();
+    }
+
+    // Dates on which the doctor already has an appointment at this time, leaving out the series' own occurrences
+    @Query("""
+           SELECT a.date FROM Appointment a
+           WHERE a.doctor.id = :doctorId AND a.time = :time AND a.status = :status AND a.date IN :dates
+             AND (:seriesId IS NULL OR a.seriesId IS NULL OR a.seriesId <> :seriesId)
+           """)
+    List<LocalDate> findConflictingDates(@Param("doctorId") long doctorId,
+                                         @Param("time") LocalTime time,
+                                         @Param("status") Status status,
+                                         @Param("dates") Collection<LocalDate> dates,
+                                         @Param("seriesId") Long seriesId);
+
+    @Query("""
+           SELECT a.id AS id, a.doctor.id AS doctorId, a.date AS date, a.time AS time FROM Appointment a
+           WHERE a.seriesId = :seriesId AND a.status = :status AND a.date >= :from
+           ORDER BY a.date
+           """)
+    List<SeriesOccurrence> findSeriesOccurrences(@Param("seriesId") long seriesId,
+                                                 @Param("status") Status status,
+                                                 @Param("from") LocalDate from);
+
+    // Bulk updates skip the entity lifecycle, so the version and timestamp are bumped here
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           UPDATE Appointment a SET a.status = :newStatus, a.version = a.version + 1, a.updatedAt = :now
+           WHERE a.seriesId = :seriesId AND a.status = :status AND a.date >= :from
+           """)
+    int updateSeriesStatus(@Param("seriesId") long seriesId,
+                           @Param("status") Status status,
+                           @Param("from") LocalDate from,
+                           @Param("newStatus") Status newStatus,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           UPDATE Appointment a SET a.doctor = :doctor, a.time = :time, a.version = a.version + 1, a.updatedAt = :now
+           WHERE a.seriesId = :seriesId AND a.status = :status AND a.date >= :from
+           """)
+    int rescheduleSeries(@Param("seriesId") long seriesId,
+                         @Param("status") Status status,
+                         @Param("from") LocalDate from,
+                         @Param("doctor") Doctor doctor,
+                         @Param("time") LocalTime time,
+                         @Param("now") LocalDateTime now);
 
+    @Query("SELECT a.version FROM Appointment a WHERE a.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
 }
\ No newline at end of file
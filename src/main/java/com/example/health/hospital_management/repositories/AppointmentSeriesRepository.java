@@ -0,0 +1,11 @@
+package com.example.health.hospital_management.repositories;
+
+import com.example.health.hospital_management.entities.AppointmentSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+    List<AppointmentSeries> findAllByActiveTrueAndMaterializedThroughBefore(LocalDate date);
+}
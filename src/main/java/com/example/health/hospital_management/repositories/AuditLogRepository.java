@@ -0,0 +1,12 @@
+package com.example.health.hospital_management.repositories;
+
+import com.example.health.hospital_management.entities.AuditLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AuditLogRepository extends JpaRepository<AuditLogEntry, Long> {
+    List<AuditLogEntry> findAllByFacilityAndEntityTypeAndEntityIdOrderByIdDesc(String facility, String entityType,
+                                                                                long entityId, Limit limit);
+}
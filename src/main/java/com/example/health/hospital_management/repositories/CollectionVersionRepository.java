@@ -0,0 +1,24 @@
+package com.example.health.hospital_management.repositories;
+
+import com.example.health.hospital_management.entities.CollectionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface CollectionVersionRepository extends JpaRepository<CollectionVersion, CollectionVersion.Key> {
+    List<CollectionVersion> findAllByFacility(String facility);
+
+    // Part of the write it versions: the row lock is held until that transaction commits
+    @Modifying
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = """
+            INSERT INTO eva_collection_versions (facility, collection, version) VALUES (:facility, :collection, 1)
+            ON DUPLICATE KEY UPDATE version = version + 1
+            """, nativeQuery = true)
+    void bump(@Param("facility") String facility, @Param("collection") String collection);
+}
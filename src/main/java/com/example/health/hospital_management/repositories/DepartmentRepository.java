@@ -0,0 +1,7 @@
+package com.example.health.hospital_management.repositories;
+
+import com.example.health.hospital_management.entities.Department;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DepartmentRepository extends JpaRepository<Department, Integer> {
+}
@@ -1,24 +1,53 @@
 package com.example.health.hospital_management.repositories;
 
 import com.example.health.hospital_management.entities.Doctor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 
 import java.util.List;
+import java.util.Optional;
 
+/*
+ * The directory lookups below go through the query cache: it holds the matching ids and the doctors
+ * themselves come from the entity cache. Any write to eva_doctors through Hibernate invalidates them.
+ */
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
-    List<Doctor> findAllBySpecializationIgnoreCase(String specialization);
+    // department and specialization are stored as dictionary ids, so pass the canonical name from ReferenceDataService
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Doctor.QUERY_CACHE_REGION)
+    })
+    List<Doctor> findAllBySpecialization(String specialization);
 
-    List<Doctor> findAllByDepartmentIgnoreCaseOrderByLastNameAsc(String department);
+    List<Doctor> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Doctor.QUERY_CACHE_REGION)
+    })
+    // dept goes through DepartmentConverter, so pass null for any department rather than an empty string
     @Query("""
       SELECT d FROM Doctor d
-      WHERE (:dept IS NULL OR :dept = '' OR LOWER(d.department) = LOWER(:dept))
+      WHERE (:dept IS NULL OR d.department = :dept)
         AND (:name IS NULL OR :name = '' OR
              LOWER(d.lastName)  LIKE LOWER(CONCAT('%', :name, '%')))
             ORDER BY d.lastName ASC
     """)
     List<Doctor> search(@Param("dept") String dept, @Param("name") String name );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Doctor.QUERY_CACHE_REGION)
+    })
+    @Query("SELECT d.id FROM Doctor d WHERE d.department = :department")
+    List<Long> findIdsByDepartment(@Param("department") String department);
+
+    @Query("SELECT d.version FROM Doctor d WHERE d.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
 }
\ No newline at end of file
@@ -1,13 +1,26 @@
 package com.example.health.hospital_management.repositories;
 
+import com.example.health.hospital_management.dtos.PatientExportRow;
 import com.example.health.hospital_management.entities.Patient;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
@@ -22,4 +35,51 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
               OR LOWER(p.firstName) LIKE LOWER(CONCAT('%', ?1, '%'))
            """)
     List<Patient> searchByName(String name);
+
+    // Keyset batches for streaming the whole table
+    @EntityGraph(attributePaths = "allergies")
+    List<Patient> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    // Patient chart header: allergies and primary doctor in one query
+    @EntityGraph(attributePaths = {"allergies", "primaryDoctor"})
+    Optional<Patient> findChartById(long id);
+
+    interface PatientAllergy {
+        long getPatientId();
+        String getAllergy();
+    }
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Patient p")
+    long findMaxId();
+
+    // Id ranges rather than row limits so one patient's allergies never straddle two batches
+    @Query("SELECT p.id AS patientId, a AS allergy FROM Patient p JOIN p.allergies a WHERE p.id > :fromId AND p.id <= :toId")
+    List<PatientAllergy> findAllergiesInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT a FROM Patient p JOIN p.allergies a WHERE p.id = :id")
+    List<String> findAllergiesById(@Param("id") long id);
+
+    // Streams over a forward-only cursor, see AppointmentRepository#streamForExport
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+           SELECT new com.example.health.hospital_management.dtos.PatientExportRow(
+               p.id, p.firstName, p.lastName, p.dateOfBirth, p.biologicalSex, p.phoneNumber, p.address,
+               d.id, p.createdAt, a)
+           FROM Patient p
+           LEFT JOIN p.primaryDoctor d
+           LEFT JOIN p.allergies a
+           WHERE (:from IS NULL OR p.createdAt >= :from)
+             AND (:to IS NULL OR p.createdAt < :to)
+             AND (:doctorId IS NULL OR d.id = :doctorId)
+           ORDER BY p.id
+           """)
+    Stream<PatientExportRow> streamForExport(@Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("doctorId") Long doctorId);
+
+    @Query("SELECT p.version FROM Patient p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
 }
\ No newline at end of file
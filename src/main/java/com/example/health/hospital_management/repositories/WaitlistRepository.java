@@ -0,0 +1,10 @@
+package com.example.health.hospital_management.repositories;
+
+import com.example.health.hospital_management.entities.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findAllByStatus(WaitlistEntry.State status);
+}
@@ -0,0 +1,185 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.dtos.AllergyCohort;
+import com.example.health.hospital_management.exceptions.ServiceOverloadedException;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.index.BitmapIndex;
+import com.example.health.hospital_management.utils.primitive.LongArrayList;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allergy to patient-id bitmaps for cohort questions such as "allergic to penicillin and latex but not
+ * to codeine". Built from patient_allergies once the application is up and kept current by the patient
+ * service after each write. Patient ids are only unique within a facility, so each facility is indexed
+ * on its own.
+ */
+@Service
+@Slf4j
+public class AllergyIndexService {
+    private final PatientRepository patientRepository;
+    private final ReferenceDataService referenceDataService;
+    private final FacilityProperties facilityProperties;
+    private final Map<String, FacilityIndex> indexes = new ConcurrentHashMap<>();
+    private final int loadBatchSize;
+    private final int maxIds;
+
+    private static class FacilityIndex {
+        final BitmapIndex index = new BitmapIndex();
+        final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+        volatile boolean ready;
+    }
+
+    public AllergyIndexService(PatientRepository patientRepository,
+                               ReferenceDataService referenceDataService,
+                               FacilityProperties facilityProperties,
+                               MeterRegistry meterRegistry,
+                               @Value("${allergy-index.load-batch-size:10000}") int loadBatchSize,
+                               @Value("${allergy-index.max-ids:1000}") int maxIds) {
+        this.patientRepository = patientRepository;
+        this.referenceDataService = referenceDataService;
+        this.facilityProperties = facilityProperties;
+        this.loadBatchSize = loadBatchSize;
+        this.maxIds = maxIds;
+        Gauge.builder("allergy.index.bytes", indexes,
+                        all -> all.values().stream().mapToLong(facility -> facility.index.sizeInBytes()).sum())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                loadCurrentFacility();
+                return null;
+            });
+        }
+    }
+
+    private void loadCurrentFacility() {
+        FacilityIndex facility = facilityIndex();
+        BitmapIndex index = facility.index;
+        Set<Long> changedWhileLoading = facility.changedWhileLoading;
+        long started = System.nanoTime();
+        long maxId = patientRepository.findMaxId();
+        for (long fromId = 0; fromId < maxId; fromId += loadBatchSize) {
+            for (PatientRepository.PatientAllergy row : patientRepository.findAllergiesInRange(fromId, fromId + loadBatchSize)) {
+                if (row.getAllergy() != null && !row.getAllergy().isBlank()) {
+                    index.add(row.getPatientId(), referenceDataService.internAllergy(row.getAllergy()));
+                }
+            }
+        }
+        // Patients written during the scan may have been read before their change; re-read them until none are left
+        while (true) {
+            Iterator<Long> changed = changedWhileLoading.iterator();
+            if (!changed.hasNext()) {
+                synchronized (changedWhileLoading) {
+                    if (changedWhileLoading.isEmpty()) {
+                        facility.ready = true;
+                        break;
+                    }
+                }
+                continue;
+            }
+            long patientId = changed.next();
+            changedWhileLoading.remove(patientId);
+            index.replace(patientId, termIds(patientRepository.findAllergiesById(patientId)));
+        }
+        index.compact();
+        log.info("Allergy index of facility {} loaded in {} ms ({} bytes)",
+                FacilityContext.current(), (System.nanoTime() - started) / 1_000_000, index.sizeInBytes());
+    }
+
+    /**
+     * Called after a patient's allergies were saved; an empty list (or a deleted patient) clears them.
+     */
+    public void patientChanged(long patientId, List<String> allergies) {
+        FacilityIndex facility = facilityIndex();
+        if (!facility.ready) {
+            synchronized (facility.changedWhileLoading) {
+                if (!facility.ready) {
+                    facility.changedWhileLoading.add(patientId);
+                }
+            }
+        }
+        facility.index.replace(patientId, termIds(allergies));
+    }
+
+    public AllergyCohort findCohort(List<String> allOf, List<String> anyOf, List<String> noneOf, int limit) {
+        Roaring64Bitmap cohort = readyIndex().query(lookup(allOf), lookup(anyOf), lookup(noneOf));
+        int idLimit = Math.clamp(limit, 0, maxIds);
+        LongArrayList patientIds = new LongArrayList((int) Math.min(idLimit, cohort.getLongCardinality()));
+        LongIterator ids = cohort.getLongIterator();
+        while (ids.hasNext() && patientIds.size() < idLimit) {
+            patientIds.add(ids.next());
+        }
+        return new AllergyCohort(cohort.getLongCardinality(), patientIds.toArray());
+    }
+
+    public Map<String, Long> getAllergyCounts() {
+        BitmapIndex index = readyIndex();
+        Map<String, Long> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        index.cardinalities().forEach((termId, count) -> {
+            if (count > 0) {
+                counts.put(referenceDataService.allergyName(termId), count);
+            }
+        });
+        return counts;
+    }
+
+    private FacilityIndex facilityIndex() {
+        return indexes.computeIfAbsent(FacilityContext.current(), facility -> new FacilityIndex());
+    }
+
+    private BitmapIndex readyIndex() {
+        FacilityIndex facility = facilityIndex();
+        if (!facility.ready) {
+            throw new ServiceOverloadedException("Allergy index is still loading, please retry shortly");
+        }
+        return facility.index;
+    }
+
+    private List<Integer> termIds(Collection<String> allergies) {
+        List<Integer> termIds = new ArrayList<>();
+        if (allergies != null) {
+            for (String allergy : allergies) {
+                if (allergy != null && !allergy.isBlank()) {
+                    termIds.add(referenceDataService.internAllergy(allergy));
+                }
+            }
+        }
+        return termIds;
+    }
+
+    // Unknown names stay as null ids: nobody has them, which empties an allOf and is ignored elsewhere
+    private List<Integer> lookup(List<String> allergies) {
+        List<Integer> termIds = new ArrayList<>();
+        if (allergies != null) {
+            for (String allergy : allergies) {
+                if (allergy != null && !allergy.isBlank()) {
+                    termIds.add(referenceDataService.allergyIdOf(allergy));
+                }
+            }
+        }
+        return termIds;
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.dtos.AppointmentReport;
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.exceptions.ServiceOverloadedException;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.AppointmentRepository.DailyCount;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.utils.primitive.LongArrayList;
+import com.example.health.hospital_management.utils.primitive.LongIntHashMap;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Appointment counts rolled up by day, doctor and status, kept current by the appointment service on every
+ * write. Reports read only the days in the requested range, so they cost the same however many
+ * appointments lie behind them. The rollup is rebuilt from eva_appointments at startup or on demand.
+ * Appointment and doctor ids are only unique within a facility, so every facility has a rollup of its own.
+ */
+@Service
+@Slf4j
+public class AppointmentAnalyticsService {
+    private static final int BOOKED = 0;
+    private static final int COMPLETED = 1;
+    private static final int CANCELLED = 2;
+    private static final int NO_SHOW = 3;
+    private static final int MAX_RESCAN_PASSES = 5;
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final FacilityProperties facilityProperties;
+    private final ForkJoinPool rebuildPool;
+    private final int rebuildBatchSize;
+    private final Map<String, Rollup> rollups = new ConcurrentHashMap<>();
+
+    private static class Rollup {
+        final AtomicBoolean rebuilding = new AtomicBoolean();
+        final Object writeLock = new Object();
+        // epoch day -> doctor id -> count per Status ordinal
+        volatile ConcurrentSkipListMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> days = new ConcurrentSkipListMap<>();
+        volatile boolean ready;
+        // Ids written while a rebuild is running, so their id ranges can be scanned again
+        Set<Long> touched;
+        // Transactions between beforeCommit and afterCompletion; a scan may or may not have seen them
+        int inFlight;
+        // Set while the last rebuild pass rescans; commits wait for it to finish
+        boolean closing;
+    }
+
+    public AppointmentAnalyticsService(AppointmentRepository appointmentRepository,
+                                       DoctorRepository doctorRepository,
+                                       FacilityProperties facilityProperties,
+                                       @Value("${analytics.rebuild-parallelism:4}") int rebuildParallelism,
+                                       @Value("${analytics.rebuild-batch-size:50000}") int rebuildBatchSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.facilityProperties = facilityProperties;
+        this.rebuildPool = new ForkJoinPool(rebuildParallelism);
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public record Slot(long doctorId, LocalDate date, Status status) {
+        public static Slot of(Appointment appointment) {
+            if (appointment.getDoctor() == null || appointment.getDate() == null || appointment.getStatus() == null) {
+                return null;
+            }
+            return new Slot(appointment.getDoctor().getId(), appointment.getDate(), appointment.getStatus());
+        }
+    }
+
+    public record Move(long appointmentId, Slot before, Slot after) {
+    }
+
+    public void record(long appointmentId, Slot before, Slot after) {
+        record(List.of(new Move(appointmentId, before, after)));
+    }
+
+    /**
+     * Moves appointments from their previous slots to their new ones; either side is null for a create or delete.
+     * Call inside the write transaction, as the facility the appointments belong to. The counts change once it
+     * has committed, and a rebuild does not swap in its scans while a commit is under way.
+     */
+    public void record(Collection<Move> moves) {
+        List<Move> changed = moves.stream()
+                .filter(move -> !Objects.equals(move.before(), move.after()))
+                .toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+        Rollup rollup = rollup();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (rollup.writeLock) {
+                apply(rollup, changed);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (rollup.writeLock) {
+                    try {
+                        while (rollup.closing) {
+                            rollup.writeLock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ServiceOverloadedException("Saving the appointment was interrupted");
+                    }
+                    rollup.inFlight++;
+                    committing = true;
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (rollup.writeLock) {
+                    if (status == STATUS_COMMITTED) {
+                        apply(rollup, changed);
+                    }
+                    if (committing) {
+                        rollup.inFlight--;
+                        rollup.writeLock.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    // Call holding the write lock
+    private static void apply(Rollup rollup, List<Move> moves) {
+        for (Move move : moves) {
+            if (rollup.touched != null) {
+                rollup.touched.add(move.appointmentId());
+            }
+            add(rollup.days, move.before(), -1);
+            add(rollup.days, move.after(), 1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                rebuild();
+                return null;
+            });
+        }
+    }
+
+    /*
+     * Rebuilds the rollup of the current facility. Writes keep landing while the id ranges are scanned, and a
+     * write is counted only after it commits, so a scan cannot tell whether it already saw one. Instead every
+     * range holding an id written during the rebuild is scanned again, until a pass goes by with no new writes
+     * to the ranges it read and no commit under way; only then is the rebuilt rollup swapped in, so every write
+     * counted after the swap committed after the scans. Under a steady stream of writes the last pass holds new
+     * commits back, waits for the ones under way and scans their ranges once more instead of never ending.
+     */
+    public void rebuild() {
+        Rollup rollup = rollup();
+        String facility = FacilityContext.current();
+        if (!rollup.rebuilding.compareAndSet(false, true)) {
+            throw new ServiceOverloadedException("Appointment analytics are already being rebuilt");
+        }
+        try {
+            long started = System.nanoTime();
+            synchronized (rollup.writeLock) {
+                rollup.touched = new HashSet<>();
+            }
+            int ranges = (int) ((appointmentRepository.findMaxId() + rebuildBatchSize - 1) / rebuildBatchSize);
+            Map<Integer, List<DailyCount>> countsByRange = new ConcurrentHashMap<>();
+            rebuildPool.invoke(new RangeScan(facility, IntStream.range(0, ranges).toArray(), 0, ranges, countsByRange));
+            int rescans = 0;
+            for (int pass = 1; ; pass++) {
+                int[] dirty;
+                synchronized (rollup.writeLock) {
+                    if (pass == MAX_RESCAN_PASSES) {
+                        rollup.closing = true;
+                        try {
+                            while (rollup.inFlight > 0) {
+                                rollup.writeLock.wait();
+                            }
+                            dirty = touchedRanges(rollup);
+                            rebuildPool.invoke(new RangeScan(facility, dirty, 0, dirty.length, countsByRange));
+                            rescans += dirty.length;
+                            rollup.days = merge(countsByRange);
+                            rollup.ready = true;
+                        } finally {
+                            rollup.closing = false;
+                            rollup.writeLock.notifyAll();
+                        }
+                        break;
+                    }
+                    dirty = touchedRanges(rollup);
+                    if (dirty.length == 0 && rollup.inFlight == 0) {
+                        rollup.days = merge(countsByRange);
+                        rollup.ready = true;
+                        break;
+                    }
+                    if (dirty.length == 0) {
+                        // Once the commit under way completes, its id is in touched
+                        rollup.writeLock.wait();
+                        continue;
+                    }
+                }
+                rebuildPool.invoke(new RangeScan(facility, dirty, 0, dirty.length, countsByRange));
+                rescans += dirty.length;
+            }
+            log.info("Appointment analytics of facility {} rebuilt from {} id ranges ({} scanned again) in {} ms",
+                    facility, ranges, rescans, (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Rebuilding appointment analytics was interrupted");
+        } finally {
+            synchronized (rollup.writeLock) {
+                rollup.touched = null;
+            }
+            rollup.rebuilding.set(false);
+        }
+    }
+
+    // Id ranges written to since the last call; call holding the write lock
+    private int[] touchedRanges(Rollup rollup) {
+        Set<Integer> ranges = new TreeSet<>();
+        rollup.touched.forEach(id -> ranges.add((int) ((id - 1) / rebuildBatchSize)));
+        rollup.touched.clear();
+        return ranges.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static ConcurrentSkipListMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> merge(
+            Map<Integer, List<DailyCount>> countsByRange) {
+        ConcurrentSkipListMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> days = new ConcurrentSkipListMap<>();
+        for (List<DailyCount> rows : countsByRange.values()) {
+            for (DailyCount count : rows) {
+                if (count.getDoctorId() != null) {
+                    counts(days, count.getDate().toEpochDay(), count.getDoctorId())
+                            .addAndGet(count.getStatus().ordinal(), count.getCount());
+                }
+            }
+        }
+        return days;
+    }
+
+    // Scans ranges[from, to) on the rebuild pool, so the facility is carried along explicitly
+    private class RangeScan extends RecursiveAction {
+        private final String facility;
+        private final int[] ranges;
+        private final int from;
+        private final int to;
+        private final Map<Integer, List<DailyCount>> countsByRange;
+
+        RangeScan(String facility, int[] ranges, int from, int to, Map<Integer, List<DailyCount>> countsByRange) {
+            this.facility = facility;
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.countsByRange = countsByRange;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeScan(facility, ranges, from, middle, countsByRange),
+                        new RangeScan(facility, ranges, middle, to, countsByRange));
+                return;
+            }
+            if (to == from) {
+                return;
+            }
+            long fromId = (long) ranges[from] * rebuildBatchSize;
+            // Grouped in the database, so each id range returns at most one row per doctor, day and status.
+            // A range scanned again replaces its earlier rows.
+            countsByRange.put(ranges[from], FacilityContext.callAs(facility,
+                    () -> appointmentRepository.countByDoctorDateAndStatus(fromId, fromId + rebuildBatchSize)));
+        }
+    }
+
+    public AppointmentReport report(LocalDate from, LocalDate to) {
+        Rollup rollup = rollup();
+        if (!rollup.ready) {
+            throw new ServiceOverloadedException("Appointment analytics are still loading, please retry shortly");
+        }
+        long today = LocalDate.now().toEpochDay();
+        long[] totals = new long[4];
+        // doctor id -> position in doctorIds and doctorCounts, so the day x doctor loop boxes nothing
+        LongIntHashMap doctorIndex = new LongIntHashMap(64, -1);
+        LongArrayList doctorIds = new LongArrayList(64);
+        List<long[]> doctorCounts = new ArrayList<>();
+        Map<LocalDate, long[]> byDay = new TreeMap<>();
+        var range = from.isAfter(to)
+                ? Map.<Long, ConcurrentHashMap<Long, AtomicLongArray>>of()
+                : rollup.days.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+        range.forEach((epochDay, doctors) -> {
+            long[] day = byDay.computeIfAbsent(LocalDate.ofEpochDay(epochDay), d -> new long[4]);
+            boolean past = epochDay < today;
+            doctors.forEach((doctorId, statusCounts) -> {
+                int index = doctorIndex.get(doctorId);
+                if (index < 0) {
+                    index = doctorCounts.size();
+                    doctorIndex.put(doctorId, index);
+                    doctorIds.add(doctorId);
+                    doctorCounts.add(new long[4]);
+                }
+                accumulate(totals, statusCounts, past);
+                accumulate(day, statusCounts, past);
+                accumulate(doctorCounts.get(index), statusCounts, past);
+            });
+        });
+
+        List<Long> idsToLoad = new ArrayList<>(doctorIds.size());
+        for (int i = 0; i < doctorIds.size(); i++) {
+            idsToLoad.add(doctorIds.get(i));
+        }
+        List<AppointmentReport.DoctorRow> doctorRows = new ArrayList<>();
+        Map<String, long[]> byDepartment = new TreeMap<>();
+        for (Doctor doctor : doctorRepository.findAllById(idsToLoad)) {
+            long[] counts = doctorCounts.get(doctorIndex.get(doctor.getId()));
+            String department = doctor.getDepartment() == null ? "Unassigned" : doctor.getDepartment();
+            long[] departmentCounts = byDepartment.computeIfAbsent(department, d -> new long[4]);
+            for (int i = 0; i < counts.length; i++) {
+                departmentCounts[i] += counts[i];
+            }
+            doctorRows.add(new AppointmentReport.DoctorRow(
+                    doctor.getId(), doctor.getFirstName() + " " + doctor.getLastName(), department, toCounts(counts)));
+        }
+        doctorRows.sort(Comparator.comparingLong((AppointmentReport.DoctorRow row) -> row.counts().total()).reversed());
+
+        AppointmentReport.Counts totalCounts = toCounts(totals);
+        Map<String, AppointmentReport.Counts> departmentCounts = new TreeMap<>();
+        byDepartment.forEach((department, counts) -> departmentCounts.put(department, toCounts(counts)));
+        Map<LocalDate, AppointmentReport.Counts> dayCounts = new TreeMap<>();
+        byDay.forEach((day, counts) -> dayCounts.put(day, toCounts(counts)));
+        return new AppointmentReport(
+                from,
+                to,
+                totalCounts,
+                ratio(totalCounts.cancelled(), totalCounts.total()),
+                ratio(totalCounts.noShows(), totalCounts.completed() + totalCounts.noShows()),
+                doctorRows,
+                departmentCounts,
+                dayCounts
+        );
+    }
+
+    /**
+     * Number of appointments in the rollup matching the filters, any of which may be null, or -1 while it is
+     * still loading. Unlike {@link #report} past bookings are not turned into no-shows.
+     */
+    public long count(LocalDate from, LocalDate to, Collection<Long> doctorIds, Status status) {
+        Rollup rollup = rollup();
+        if (!rollup.ready) {
+            return -1;
+        }
+        NavigableMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> range = rollup.days;
+        if (from != null) {
+            range = range.tailMap(from.toEpochDay(), true);
+        }
+        if (to != null) {
+            range = range.headMap(to.toEpochDay(), true);
+        }
+        long total = 0;
+        for (ConcurrentHashMap<Long, AtomicLongArray> doctors : range.values()) {
+            if (doctorIds == null) {
+                for (AtomicLongArray statusCounts : doctors.values()) {
+                    total += sum(statusCounts, status);
+                }
+            } else {
+                for (Long doctorId : doctorIds) {
+                    AtomicLongArray statusCounts = doctors.get(doctorId);
+                    if (statusCounts != null) {
+                        total += sum(statusCounts, status);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void accumulate(long[] bucket, AtomicLongArray statusCounts, boolean past) {
+        bucket[past ? NO_SHOW : BOOKED] += statusCounts.get(Status.BOOKED.ordinal());
+        bucket[COMPLETED] += statusCounts.get(Status.COMPLETED.ordinal());
+        bucket[CANCELLED] += statusCounts.get(Status.CANCELLED.ordinal());
+    }
+
+    private Rollup rollup() {
+        return rollups.computeIfAbsent(FacilityContext.current(), facility -> new Rollup());
+    }
+
+    private static long sum(AtomicLongArray statusCounts, Status status) {
+        if (status != null) {
+            return statusCounts.get(status.ordinal());
+        }
+        long sum = 0;
+        for (int i = 0; i < statusCounts.length(); i++) {
+            sum += statusCounts.get(i);
+        }
+        return sum;
+    }
+
+    private static void add(ConcurrentSkipListMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> target,
+                            Slot slot, long delta) {
+        if (slot != null) {
+            counts(target, slot.date().toEpochDay(), slot.doctorId()).addAndGet(slot.status().ordinal(), delta);
+        }
+    }
+
+    private static AtomicLongArray counts(ConcurrentSkipListMap<Long, ConcurrentHashMap<Long, AtomicLongArray>> target,
+                                          long epochDay, long doctorId) {
+        return target.computeIfAbsent(epochDay, day -> new ConcurrentHashMap<>())
+                .computeIfAbsent(doctorId, id -> new AtomicLongArray(Status.values().length));
+    }
+
+    private static AppointmentReport.Counts toCounts(long[] counts) {
+        return new AppointmentReport.Counts(
+                counts[BOOKED] + counts[COMPLETED] + counts[CANCELLED] + counts[NO_SHOW],
+                counts[BOOKED],
+                counts[COMPLETED],
+                counts[CANCELLED],
+                counts[NO_SHOW]
+        );
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildPool.shutdownNow();
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AppointmentChangeEvent;
+import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process change log for appointments. Writes are appended to a fixed-size ring so clients can
+ * resume from their last offset; subscribers that fall further behind than their queue allows are
+ * disconnected with a reset event and expected to refetch instead of buffering without bound.
+ */
+@Service
+@Slf4j
+public class AppointmentChangeFeed {
+    private final AppointmentChangeEvent[] ring;
+    private final int subscriberQueueSize;
+    private final long emitterTimeout;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private long nextOffset = 1;
+
+    public AppointmentChangeFeed(
+            @Value("${appointment.feed.capacity:1024}") int capacity,
+            @Value("${appointment.feed.subscriber-queue-size:256}") int subscriberQueueSize,
+            @Value("${appointment.feed.emitter-timeout:1800000}") long emitterTimeout) {
+        this.ring = new AppointmentChangeEvent[capacity];
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    public void publish(AppointmentChangeEvent.Type type, AppointmentInformation appointment) {
+        AppointmentChangeEvent event;
+        synchronized (ring) {
+            event = new AppointmentChangeEvent(
+                    nextOffset++,
+                    type,
+                    appointment.id(),
+                    appointment.patient() == null ? 0 : appointment.patient().id(),
+                    appointment.doctor() == null ? 0 : appointment.doctor().id(),
+                    appointment,
+                    Instant.now(),
+                    FacilityContext.current()
+            );
+            ring[(int) (event.offset() % ring.length)] = event;
+            // Fan out under the lock so every subscriber sees offsets in order; offer never blocks
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long fromOffset, Long doctorId, Long patientId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        // Replay and register under the publish lock so the backlog and live events line up by offset
+        synchronized (ring) {
+            List<AppointmentChangeEvent> backlog = fromOffset == null ? List.of() : replay(fromOffset);
+            // The backlog can be as long as the ring, so it is queued on top of the usual allowance for lag
+            Subscriber subscriber = new Subscriber(emitter, doctorId, patientId,
+                    subscriberQueueSize + (backlog == null ? 0 : backlog.size()));
+            emitter.onCompletion(() -> subscribers.remove(subscriber));
+            emitter.onTimeout(() -> subscribers.remove(subscriber));
+            emitter.onError(e -> subscribers.remove(subscriber));
+            if (backlog == null) {
+                subscriber.reset();
+                return emitter;
+            }
+            backlog.forEach(subscriber::offer);
+            subscriber.offer(null);
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        }
+        return emitter;
+    }
+
+    public long currentOffset() {
+        synchronized (ring) {
+            return nextOffset - 1;
+        }
+    }
+
+    private List<AppointmentChangeEvent> replay(long fromOffset) {
+        long latest = nextOffset - 1;
+        if (fromOffset == latest) {
+            return List.of();
+        }
+        // Ahead of the log (e.g. after a restart) or already overwritten: the client has to refetch
+        long oldest = Math.max(1, nextOffset - ring.length);
+        if (fromOffset > latest || fromOffset + 1 < oldest) {
+            return null;
+        }
+        List<AppointmentChangeEvent> backlog = new ArrayList<>((int) (nextOffset - fromOffset - 1));
+        for (long offset = fromOffset + 1; offset < nextOffset; offset++) {
+            backlog.add(ring[(int) (offset % ring.length)]);
+        }
+        return backlog;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Long doctorId;
+        private final Long patientId;
+        private final String facility = FacilityContext.current();
+        private final Queue<AppointmentChangeEvent> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean announced;
+
+        private Subscriber(SseEmitter emitter, Long doctorId, Long patientId, int queueCapacity) {
+            this.emitter = emitter;
+            this.doctorId = doctorId;
+            this.patientId = patientId;
+            this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        // A null event just kicks the drain loop so the client gets its initial position
+        private void offer(AppointmentChangeEvent event) {
+            if (closed) {
+                return;
+            }
+            if (event != null && !matches(event)) {
+                return;
+            }
+            if (event != null && !pending.offer(event)) {
+                log.warn("Appointment feed subscriber fell behind by {} events, resetting", pending.size());
+                reset();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private boolean matches(AppointmentChangeEvent event) {
+            return facility.equals(event.facility())
+                    && (doctorId == null || doctorId == event.doctorId())
+                    && (patientId == null || patientId == event.patientId());
+        }
+
+        private void drain() {
+            try {
+                if (!announced) {
+                    emitter.send(SseEmitter.event().name("ready").data(currentOffset()));
+                    announced = true;
+                }
+                AppointmentChangeEvent event;
+                while (!closed && (event = pending.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.offset()))
+                            .name(event.type().name().toLowerCase())
+                            .data(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void reset() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+            dispatcher.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().name("reset").data(currentOffset()));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            });
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
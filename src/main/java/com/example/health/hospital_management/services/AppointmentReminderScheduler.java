@@ -0,0 +1,197 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.dtos.AppointmentReminder;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.utils.scheduling.TimingWheel;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reminder and no-show timers for BOOKED appointments starting within the next few hours, held in a
+ * timing wheel. Only that window is ever in memory: a periodic windowed query tops it up as time moves on,
+ * and appointment writes add, move or drop timers as they happen. Appointment ids are only unique within a
+ * facility, so each facility has a wheel of its own, and reminders are sent as that facility.
+ */
+@Service
+@Slf4j
+public class AppointmentReminderScheduler {
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderSink reminderSink;
+    private final FacilityProperties facilityProperties;
+    private final Duration horizon;
+    private final Duration lead;
+    private final Duration grace;
+    private final long tickMillis;
+    private final int maxScheduled;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, FacilityTimers> facilities = new ConcurrentHashMap<>();
+    private final Counter reminders;
+    private final Counter noShows;
+    private final Counter skipped;
+
+    public AppointmentReminderScheduler(AppointmentRepository appointmentRepository,
+                                        ReminderSink reminderSink,
+                                        FacilityProperties facilityProperties,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${reminders.horizon-hours:24}") long horizonHours,
+                                        @Value("${reminders.lead-minutes:60}") long leadMinutes,
+                                        @Value("${reminders.no-show-grace-minutes:30}") long graceMinutes,
+                                        @Value("${reminders.tick-ms:1000}") long tickMillis,
+                                        @Value("${reminders.max-scheduled:100000}") int maxScheduled) {
+        this.appointmentRepository = appointmentRepository;
+        this.reminderSink = reminderSink;
+        this.facilityProperties = facilityProperties;
+        this.horizon = Duration.ofHours(horizonHours);
+        this.lead = Duration.ofMinutes(leadMinutes);
+        this.grace = Duration.ofMinutes(graceMinutes);
+        this.tickMillis = tickMillis;
+        this.maxScheduled = maxScheduled;
+        this.reminders = Counter.builder("reminders.fired").tag("type", "reminder").register(meterRegistry);
+        this.noShows = Counter.builder("reminders.fired").tag("type", "no_show").register(meterRegistry);
+        this.skipped = Counter.builder("reminders.skipped").register(meterRegistry);
+        Gauge.builder("reminders.scheduled", facilities,
+                        all -> all.values().stream().mapToInt(timers -> timers.wheel.size()).sum())
+                .register(meterRegistry);
+    }
+
+    // The timers of one facility; timersByAppointment is guarded by the scheduler's lock
+    private class FacilityTimers {
+        // No-show timers land up to the grace period past the horizon
+        final TimingWheel<AppointmentReminder> wheel =
+                new TimingWheel<>(tickMillis, 60, horizon.plus(grace).toMillis(), System.currentTimeMillis());
+        final Map<Long, List<TimingWheel.Timer<AppointmentReminder>>> timersByAppointment = new HashMap<>();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        refill();
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.refill-interval-ms:900000}", initialDelayString = "${reminders.refill-interval-ms:900000}")
+    public void refill() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                refillCurrentFacility();
+                return null;
+            });
+        }
+    }
+
+    private void refillCurrentFacility() {
+        FacilityTimers timers = timers();
+        LocalDateTime now = LocalDateTime.now(zone);
+        LocalDateTime from = now.minus(grace);
+        LocalDateTime to = now.plus(horizon);
+        int added = 0;
+        for (var slot : appointmentRepository.findSlotsByStatusAndDateBetween(Status.BOOKED, from.toLocalDate(), to.toLocalDate())) {
+            LocalDateTime startsAt = LocalDateTime.of(slot.getDate(), slot.getTime());
+            if (!startsAt.isBefore(from) && !startsAt.isAfter(to)) {
+                synchronized (this) {
+                    if (!timers.timersByAppointment.containsKey(slot.getId()) && schedule(timers, slot.getId(), startsAt)) {
+                        added++;
+                    }
+                }
+            }
+        }
+        log.debug("Reminder window of facility {} refilled up to {}, {} appointments added",
+                FacilityContext.current(), to, added);
+    }
+
+    // Called as the facility the appointment belongs to
+    public synchronized void appointmentChanged(AppointmentInformation appointment) {
+        FacilityTimers timers = timers();
+        List<TimingWheel.Timer<AppointmentReminder>> existing = timers.timersByAppointment.remove(appointment.id());
+        if (existing != null) {
+            existing.forEach(timers.wheel::cancel);
+        }
+        if (appointment.status() != Status.BOOKED || appointment.date() == null || appointment.time() == null) {
+            return;
+        }
+        LocalDateTime startsAt = LocalDateTime.of(appointment.date(), appointment.time());
+        LocalDateTime now = LocalDateTime.now(zone);
+        if (!startsAt.isBefore(now.minus(grace)) && !startsAt.isAfter(now.plus(horizon))) {
+            schedule(timers, appointment.id(), startsAt);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${reminders.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        facilities.forEach((facility, timers) -> FacilityContext.callAs(facility, () -> {
+            for (AppointmentReminder reminder : timers.wheel.advance(now)) {
+                send(timers, reminder);
+            }
+            return null;
+        }));
+    }
+
+    private void send(FacilityTimers timers, AppointmentReminder reminder) {
+        if (reminder.type() == AppointmentReminder.Type.NO_SHOW) {
+            synchronized (this) {
+                timers.timersByAppointment.remove(reminder.appointmentId());
+            }
+            noShows.increment();
+        } else {
+            reminders.increment();
+        }
+        try {
+            reminderSink.send(reminder);
+        } catch (RuntimeException e) {
+            log.warn("Sending {} for appointment {} failed", reminder.type(), reminder.appointmentId(), e);
+        }
+    }
+
+    private FacilityTimers timers() {
+        return facilities.computeIfAbsent(FacilityContext.current(), facility -> new FacilityTimers());
+    }
+
+    // Caller holds the lock; maxScheduled applies to each facility
+    private boolean schedule(FacilityTimers facilityTimers, long appointmentId, LocalDateTime startsAt) {
+        if (facilityTimers.timersByAppointment.size() >= maxScheduled) {
+            skipped.increment();
+            return false;
+        }
+        long startMillis = startsAt.atZone(zone).toInstant().toEpochMilli();
+        List<TimingWheel.Timer<AppointmentReminder>> timers = new ArrayList<>(2);
+        // A reminder whose lead time has already passed still goes out, as long as the appointment has not started
+        if (startMillis > System.currentTimeMillis()) {
+            addTimer(facilityTimers.wheel, timers, startMillis - lead.toMillis(),
+                    new AppointmentReminder(appointmentId, AppointmentReminder.Type.REMINDER, startsAt));
+        }
+        addTimer(facilityTimers.wheel, timers, startMillis + grace.toMillis(),
+                new AppointmentReminder(appointmentId, AppointmentReminder.Type.NO_SHOW, startsAt));
+        if (timers.isEmpty()) {
+            return false;
+        }
+        facilityTimers.timersByAppointment.put(appointmentId, timers);
+        return true;
+    }
+
+    private static void addTimer(TimingWheel<AppointmentReminder> wheel, List<TimingWheel.Timer<AppointmentReminder>> timers,
+                                 long deadlineMillis, AppointmentReminder reminder) {
+        TimingWheel.Timer<AppointmentReminder> timer = wheel.schedule(deadlineMillis, reminder);
+        if (timer != null) {
+            timers.add(timer);
+        }
+    }
+}
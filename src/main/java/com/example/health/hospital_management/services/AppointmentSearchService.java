@@ -0,0 +1,183 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AppointmentSearchPage;
+import com.example.health.hospital_management.dtos.AppointmentSearchRequest;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.utils.search.AppointmentQueryPlanner;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Composite appointment search. Filters are resolved to ids up front (a department becomes its doctors),
+ * {@link AppointmentQueryPlanner} picks the index and the query runs as plain SQL with keyset paging, so a
+ * deep page costs the same as the first. The first page also carries a count estimate, from the analytics
+ * rollup when the filters are ones it keeps counts for and from the database's own row estimate otherwise.
+ * A cursor carries a checksum of the filters and facility it was issued for and is rejected with any others,
+ * so it cannot quietly page through a different result set.
+ */
+@Service
+@Slf4j
+public class AppointmentSearchService {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DoctorRepository doctorRepository;
+    private final ReferenceDataService referenceDataService;
+    private final AppointmentAnalyticsService appointmentAnalyticsService;
+    private final MeterRegistry meterRegistry;
+    private final AppointmentQueryPlanner planner;
+
+    private record Estimate(Long total, String source) {
+    }
+
+    public AppointmentSearchService(NamedParameterJdbcTemplate jdbcTemplate,
+                                    DoctorRepository doctorRepository,
+                                    ReferenceDataService referenceDataService,
+                                    AppointmentAnalyticsService appointmentAnalyticsService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${appointment.search.max-doctors-for-doctor-index:50}") int maxDoctorsForDoctorIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.doctorRepository = doctorRepository;
+        this.referenceDataService = referenceDataService;
+        this.appointmentAnalyticsService = appointmentAnalyticsService;
+        this.meterRegistry = meterRegistry;
+        this.planner = new AppointmentQueryPlanner(maxDoctorsForDoctorIndex);
+    }
+
+    @Transactional(readOnly = true)
+    public AppointmentSearchPage search(AppointmentSearchRequest request, String cursor, int size) {
+        if (request.timeFrom() != null && request.timeTo() != null && request.timeFrom().isAfter(request.timeTo())) {
+            throw new IllegalArgumentException("timeFrom must not be after timeTo");
+        }
+        Collection<Long> doctorIds = resolveDoctors(request.doctorId(), request.department());
+        boolean emptyRange = request.from() != null && request.to() != null && request.from().isAfter(request.to());
+        if (doctorIds != null && doctorIds.isEmpty() || emptyRange) {
+            return new AppointmentSearchPage(List.of(), null, 0L, "filters", null);
+        }
+
+        AppointmentQueryPlanner.Criteria criteria = new AppointmentQueryPlanner.Criteria(
+                FacilityContext.current(), request.patientId(), doctorIds, request.status(),
+                request.from(), request.to(), request.timeFrom(), request.timeTo());
+        // One extra row tells us whether there is a next page
+        String filters = filtersChecksum(request);
+        AppointmentQueryPlanner.Plan plan = planner.plan(criteria, decodeCursor(cursor, filters), size + 1);
+        List<AppointmentSearchPage.Row> rows = Timer.builder("appointments.search")
+                .tag("index", plan.index())
+                .register(meterRegistry)
+                .record(() -> jdbcTemplate.query(plan.sql(), plan.parameters(), AppointmentSearchService::toRow));
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            AppointmentSearchPage.Row last = rows.getLast();
+            nextCursor = encodeCursor(last.date(), last.id(), filters);
+        }
+        Estimate estimate = cursor == null ? estimate(criteria, plan) : new Estimate(null, null);
+        return new AppointmentSearchPage(rows, nextCursor, estimate.total(), estimate.source(), plan.index());
+    }
+
+    // Null means any doctor; an empty list means no doctor can match
+    private Collection<Long> resolveDoctors(Long doctorId, String department) {
+        if (department == null || department.isBlank()) {
+            return doctorId == null ? null : List.of(doctorId);
+        }
+        String canonical = referenceDataService.canonicalDepartment(department);
+        List<Long> inDepartment = canonical == null ? List.of() : doctorRepository.findIdsByDepartment(canonical);
+        if (doctorId == null) {
+            return inDepartment;
+        }
+        return inDepartment.contains(doctorId) ? List.of(doctorId) : List.of();
+    }
+
+    private Estimate estimate(AppointmentQueryPlanner.Criteria criteria, AppointmentQueryPlanner.Plan plan) {
+        // The rollup counts by day, doctor and status only
+        if (criteria.patientId() == null && criteria.timeFrom() == null && criteria.timeTo() == null) {
+            long count = appointmentAnalyticsService.count(criteria.from(), criteria.to(), criteria.doctorIds(), criteria.status());
+            if (count >= 0) {
+                return new Estimate(count, "rollup");
+            }
+        }
+        // The optimizer's estimate for the appointments table, summed over the per-doctor subqueries if there
+        // are any: rows it expects to read times the share it expects to keep
+        String sql = "EXPLAIN " + plan.sql().substring(0, plan.sql().lastIndexOf(" ORDER BY"));
+        try {
+            return jdbcTemplate.query(sql, plan.parameters(), (rs, rowNum) -> "a".equals(rs.getString("table"))
+                            ? Math.round(rs.getLong("rows") * rs.getDouble("filtered") / 100)
+                            : null)
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .reduce(Long::sum)
+                    .map(rows -> new Estimate(rows, "query-plan"))
+                    .orElse(new Estimate(null, null));
+        } catch (DataAccessException e) {
+            log.debug("Could not estimate appointment search size", e);
+            return new Estimate(null, null);
+        }
+    }
+
+    private static AppointmentSearchPage.Row toRow(ResultSet rs, int rowNum) throws SQLException {
+        return new AppointmentSearchPage.Row(
+                rs.getLong("id"),
+                rs.getObject("date", LocalDate.class),
+                rs.getObject("time", LocalTime.class),
+                Status.values()[rs.getInt("status")],
+                rs.getLong("patient_id"),
+                rs.getString("patient_first_name"),
+                rs.getString("patient_last_name"),
+                rs.getObject("doctor_id", Long.class),
+                rs.getString("doctor_first_name"),
+                rs.getString("doctor_last_name")
+        );
+    }
+
+    private static String filtersChecksum(AppointmentSearchRequest request) {
+        CRC32 crc = new CRC32();
+        crc.update(String.join("|", FacilityContext.current(), String.valueOf(request.patientId()),
+                        String.valueOf(request.doctorId()), String.valueOf(request.department()),
+                        String.valueOf(request.status()), String.valueOf(request.from()), String.valueOf(request.to()),
+                        String.valueOf(request.timeFrom()), String.valueOf(request.timeTo()))
+                .getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String encodeCursor(LocalDate date, long id, String filters) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + ":" + id + ":" + filters).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static AppointmentQueryPlanner.Cursor decodeCursor(String cursor, String filters) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        AppointmentQueryPlanner.Cursor decoded;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            decoded = new AppointmentQueryPlanner.Cursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[2].equals(filters)) {
+            throw new IllegalArgumentException("Cursor was issued for different search filters");
+        }
+        return decoded;
+    }
+}
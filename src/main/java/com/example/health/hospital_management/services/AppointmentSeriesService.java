@@ -0,0 +1,454 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.dtos.AppointmentChangeEvent;
+import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.dtos.AppointmentSeriesInformation;
+import com.example.health.hospital_management.dtos.DoctorInformation;
+import com.example.health.hospital_management.dtos.PatientInformation;
+import com.example.health.hospital_management.dtos.PostNewAppointmentSeriesRequest;
+import com.example.health.hospital_management.dtos.UpdateAppointmentSeriesRequest;
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.AppointmentSeries;
+import com.example.health.hospital_management.entities.AuditLogEntry;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.exceptions.AppointmentSeriesNotFoundException;
+import com.example.health.hospital_management.exceptions.DoctorNotFoundException;
+import com.example.health.hospital_management.exceptions.PatientNotFoundException;
+import com.example.health.hospital_management.exceptions.SchedulingConflictException;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.AppointmentSeriesRepository;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.mappers.DoctorMapper;
+import com.example.health.hospital_management.utils.mappers.PatientMapper;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring appointments. A series only creates its occurrences a rolling horizon ahead: once when it is
+ * created and then from a periodic job as the horizon moves on. Each batch of dates is checked against the
+ * doctor's bookings in a single query and inserted in one JDBC batch. Editing or cancelling a series is one
+ * bulk UPDATE over its future occurrences.
+ */
+@Service
+@Slf4j
+public class AppointmentSeriesService {
+    // Status is stored by ordinal, as Appointment maps it
+    private static final String INSERT_SQL = """
+            INSERT INTO eva_appointments (patient_id, doctor_id, date, time, status, series_id, facility, created_at, updated_at, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    private final AppointmentSeriesRepository seriesRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final AppointmentAnalyticsService appointmentAnalyticsService;
+    private final AppointmentChangeFeed appointmentChangeFeed;
+    private final ResourceVersionService resourceVersionService;
+    private final AppointmentReminderScheduler appointmentReminderScheduler;
+    private final AuditLogService auditLogService;
+    private final AppointmentService appointmentService;
+    private final FacilityProperties facilityProperties;
+    private final int horizonDays;
+    private final Counter materialized;
+    private final Counter skipped;
+
+    // An occurrence written in bulk, with its slot and time before the change; both are null for a new one
+    private record Change(AppointmentInformation appointment, AppointmentAnalyticsService.Slot before, LocalTime timeBefore) {
+    }
+
+    private record Outcome(AppointmentSeriesInformation series, List<Change> changes) {
+    }
+
+    public AppointmentSeriesService(AppointmentSeriesRepository seriesRepository,
+                                    AppointmentRepository appointmentRepository,
+                                    PatientRepository patientRepository,
+                                    DoctorRepository doctorRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    AppointmentAnalyticsService appointmentAnalyticsService,
+                                    AppointmentChangeFeed appointmentChangeFeed,
+                                    ResourceVersionService resourceVersionService,
+                                    AppointmentReminderScheduler appointmentReminderScheduler,
+                                    AuditLogService auditLogService,
+                                    AppointmentService appointmentService,
+                                    FacilityProperties facilityProperties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${appointments.series.horizon-days:90}") int horizonDays) {
+        this.seriesRepository = seriesRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.appointmentAnalyticsService = appointmentAnalyticsService;
+        this.appointmentChangeFeed = appointmentChangeFeed;
+        this.resourceVersionService = resourceVersionService;
+        this.appointmentReminderScheduler = appointmentReminderScheduler;
+        this.auditLogService = auditLogService;
+        this.appointmentService = appointmentService;
+        this.facilityProperties = facilityProperties;
+        this.horizonDays = horizonDays;
+        this.materialized = Counter.builder("appointments.series.materialized").register(meterRegistry);
+        this.skipped = Counter.builder("appointments.series.skipped").register(meterRegistry);
+    }
+
+    /**
+     * Rejects the whole series when the doctor is already booked at that time on any date inside the horizon.
+     */
+    public AppointmentSeriesInformation createSeries(PostNewAppointmentSeriesRequest request) {
+        if (request.endDate() != null && request.endDate().isBefore(request.startDate())) {
+            throw new IllegalArgumentException("End date must not be before the start date");
+        }
+        Outcome outcome = transaction.execute(status -> {
+            Patient patient = patientRepository.findById(request.patientId())
+                    .orElseThrow(() -> new PatientNotFoundException(
+                            "Patient with id of " + request.patientId() + " not found"
+                    ));
+            Doctor doctor = doctorRepository.findById(request.doctorId())
+                    .orElseThrow(() -> new DoctorNotFoundException(
+                            "Doctor with the id " + request.doctorId() + " not found"
+                    ));
+            AppointmentSeries series = seriesRepository.save(AppointmentSeries.builder()
+                    .patient(patient)
+                    .doctor(doctor)
+                    .recurrence(request.recurrence())
+                    .repeatEvery(request.repeatEvery())
+                    .startDate(request.startDate())
+                    .time(request.time())
+                    .endDate(request.endDate())
+                    .maxOccurrences(request.occurrences())
+                    .active(true)
+                    .build());
+            List<Change> created = materialize(series, true);
+            return new Outcome(toDto(series, created.size()), created);
+        });
+        publish(AppointmentChangeEvent.Type.CREATED, outcome.series().id(), outcome.changes());
+        return outcome.series();
+    }
+
+    public AppointmentSeriesInformation getSeries(long id) {
+        return transaction.execute(status -> toDto(findSeries(id), 0));
+    }
+
+    /**
+     * Moves every booked occurrence from the effective date on to the new doctor and/or time in one UPDATE,
+     * after checking all of them for clashes in one query. Later occurrences are created with the new values.
+     */
+    public AppointmentSeriesInformation updateSeries(long id, UpdateAppointmentSeriesRequest request) {
+        LocalDate from = request.effectiveFrom() == null ? LocalDate.now() : request.effectiveFrom();
+        Outcome outcome = transaction.execute(status -> {
+            AppointmentSeries series = findSeries(id);
+            Doctor doctor = request.doctorId() == null ? series.getDoctor()
+                    : doctorRepository.findById(request.doctorId())
+                    .orElseThrow(() -> new DoctorNotFoundException(
+                            "Doctor with the id " + request.doctorId() + " not found"
+                    ));
+            LocalTime time = request.time() == null ? series.getTime() : request.time();
+            PatientInformation patient = patientDto(series.getPatient());
+            DoctorInformation doctorDto = DoctorMapper.toSummaryDto(doctor);
+            var occurrences = appointmentRepository.findSeriesOccurrences(id, Status.BOOKED, from);
+            List<Change> changes = new ArrayList<>(occurrences.size());
+            if (!occurrences.isEmpty()) {
+                rejectConflicts(doctor, time, occurrences.stream().map(AppointmentRepository.SeriesOccurrence::getDate).toList(), id);
+                appointmentRepository.rescheduleSeries(id, Status.BOOKED, from, doctor, time, LocalDateTime.now());
+                resourceVersionService.appointmentsChanged();
+                for (var occurrence : occurrences) {
+                    changes.add(new Change(
+                            new AppointmentInformation(occurrence.getId(), patient, doctorDto, occurrence.getDate(), time, Status.BOOKED),
+                            new AppointmentAnalyticsService.Slot(occurrence.getDoctorId(), occurrence.getDate(), Status.BOOKED),
+                            occurrence.getTime()));
+                }
+            }
+            recordAnalytics(changes);
+            series.setDoctor(doctor);
+            series.setTime(time);
+            return new Outcome(toDto(seriesRepository.save(series), patient, changes.size()), changes);
+        });
+        publish(AppointmentChangeEvent.Type.UPDATED, id, outcome.changes());
+        return outcome.series();
+    }
+
+    /**
+     * Cancels every booked occurrence from the given date on in one UPDATE and stops the series.
+     */
+    public AppointmentSeriesInformation cancelSeries(long id, LocalDate effectiveFrom) {
+        LocalDate from = effectiveFrom == null ? LocalDate.now() : effectiveFrom;
+        Outcome outcome = transaction.execute(status -> {
+            AppointmentSeries series = findSeries(id);
+            PatientInformation patient = patientDto(series.getPatient());
+            var occurrences = appointmentRepository.findSeriesOccurrences(id, Status.BOOKED, from);
+            List<Change> changes = new ArrayList<>(occurrences.size());
+            if (!occurrences.isEmpty()) {
+                // Occurrences moved to another doctor one by one keep that doctor
+                Map<Long, DoctorInformation> doctors = new HashMap<>();
+                doctors.put(series.getDoctor().getId(), DoctorMapper.toSummaryDto(series.getDoctor()));
+                Set<Long> others = occurrences.stream()
+                        .map(AppointmentRepository.SeriesOccurrence::getDoctorId)
+                        .filter(doctorId -> !doctors.containsKey(doctorId))
+                        .collect(Collectors.toSet());
+                if (!others.isEmpty()) {
+                    doctorRepository.findAllById(others).forEach(doctor -> doctors.put(doctor.getId(), DoctorMapper.toSummaryDto(doctor)));
+                }
+                appointmentRepository.updateSeriesStatus(id, Status.BOOKED, from, Status.CANCELLED, LocalDateTime.now());
+                resourceVersionService.appointmentsChanged();
+                for (var occurrence : occurrences) {
+                    changes.add(new Change(
+                            new AppointmentInformation(occurrence.getId(), patient, doctors.get(occurrence.getDoctorId()),
+                                    occurrence.getDate(), occurrence.getTime(), Status.CANCELLED),
+                            new AppointmentAnalyticsService.Slot(occurrence.getDoctorId(), occurrence.getDate(), Status.BOOKED),
+                            occurrence.getTime()));
+                }
+            }
+            recordAnalytics(changes);
+            series.setActive(false);
+            return new Outcome(toDto(seriesRepository.save(series), patient, changes.size()), changes);
+        });
+        publish(AppointmentChangeEvent.Type.CANCELLED, id, outcome.changes());
+        return outcome.series();
+    }
+
+    /**
+     * Tops up every active series to the current horizon. Dates that clash with a booking made since the
+     * series was created are skipped and counted rather than failing the series.
+     */
+    @Scheduled(fixedDelayString = "${appointments.series.extend-interval-ms:3600000}",
+            initialDelayString = "${appointments.series.extend-interval-ms:3600000}")
+    public void extendSeries() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                extendSeriesOfCurrentFacility();
+                return null;
+            });
+        }
+    }
+
+    private void extendSeriesOfCurrentFacility() {
+        LocalDate horizon = LocalDate.now().plusDays(horizonDays);
+        for (AppointmentSeries due : seriesRepository.findAllByActiveTrueAndMaterializedThroughBefore(horizon)) {
+            try {
+                List<Change> created = transaction.execute(status -> materialize(findSeries(due.getId()), false));
+                publish(AppointmentChangeEvent.Type.CREATED, due.getId(), created);
+            } catch (RuntimeException e) {
+                log.warn("Extending appointment series {} failed", due.getId(), e);
+            }
+        }
+    }
+
+    // Runs inside a transaction
+    private List<Change> materialize(AppointmentSeries series, boolean rejectOnConflict) {
+        LocalDate horizon = LocalDate.now().plusDays(horizonDays);
+        List<LocalDate> dates = new ArrayList<>();
+        int index = series.getMaterializedCount();
+        boolean exhausted = false;
+        while (true) {
+            if (series.getMaxOccurrences() != null && index >= series.getMaxOccurrences()) {
+                exhausted = true;
+                break;
+            }
+            LocalDate date = series.getRecurrence().occurrence(series.getStartDate(), series.getRepeatEvery(), index);
+            if (series.getEndDate() != null && date.isAfter(series.getEndDate())) {
+                exhausted = true;
+                break;
+            }
+            if (date.isAfter(horizon)) {
+                break;
+            }
+            dates.add(date);
+            index++;
+        }
+        series.setMaterializedCount(index);
+        series.setMaterializedThrough(horizon);
+        series.setActive(!exhausted);
+        seriesRepository.save(series);
+        if (dates.isEmpty()) {
+            return List.of();
+        }
+
+        Doctor doctor = series.getDoctor();
+        if (rejectOnConflict) {
+            rejectConflicts(doctor, series.getTime(), dates, series.getId());
+        } else {
+            List<LocalDate> conflicts = appointmentRepository.findConflictingDates(
+                    doctor.getId(), series.getTime(), Status.BOOKED, dates, series.getId());
+            if (!conflicts.isEmpty()) {
+                skipped.increment(conflicts.size());
+                dates.removeAll(conflicts);
+                log.info("Series {} skipped {} occurrences the doctor is already booked for", series.getId(), conflicts.size());
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Time time = Time.valueOf(series.getTime());
+        jdbcTemplate.batchUpdate(INSERT_SQL, dates, dates.size(), (statement, date) -> {
+            statement.setLong(1, series.getPatient().getId());
+            statement.setLong(2, doctor.getId());
+            statement.setDate(3, Date.valueOf(date));
+            statement.setTime(4, time);
+            statement.setInt(5, Status.BOOKED.ordinal());
+            statement.setLong(6, series.getId());
+            statement.setString(7, series.getFacility());
+            statement.setTimestamp(8, now);
+            statement.setTimestamp(9, now);
+        });
+        materialized.increment(dates.size());
+        if (!dates.isEmpty()) {
+            resourceVersionService.appointmentsChanged();
+        }
+
+        // One read to learn the generated ids of the rows just inserted
+        PatientInformation patient = patientDto(series.getPatient());
+        DoctorInformation doctorDto = DoctorMapper.toSummaryDto(doctor);
+        Set<LocalDate> inserted = new HashSet<>(dates);
+        List<Change> created = new ArrayList<>(dates.size());
+        for (var occurrence : appointmentRepository.findSeriesOccurrences(series.getId(), Status.BOOKED, dates.getFirst())) {
+            if (inserted.contains(occurrence.getDate())) {
+                created.add(new Change(new AppointmentInformation(occurrence.getId(), patient, doctorDto,
+                        occurrence.getDate(), occurrence.getTime(), Status.BOOKED), null, null));
+            }
+        }
+        recordAnalytics(created);
+        return created;
+    }
+
+    // Inside the transaction, so the rollup counts the changes once they commit
+    private void recordAnalytics(List<Change> changes) {
+        appointmentAnalyticsService.record(changes.stream()
+                .map(change -> new AppointmentAnalyticsService.Move(change.appointment().id(), change.before(),
+                        new AppointmentAnalyticsService.Slot(change.appointment().doctor().id(),
+                                change.appointment().date(), change.appointment().status())))
+                .toList());
+    }
+
+    private void rejectConflicts(Doctor doctor, LocalTime time, List<LocalDate> dates, long seriesId) {
+        List<LocalDate> conflicts = appointmentRepository.findConflictingDates(
+                doctor.getId(), time, Status.BOOKED, dates, seriesId);
+        if (!conflicts.isEmpty()) {
+            throw new SchedulingConflictException("Doctor with the id " + doctor.getId()
+                    + " is already booked at " + time + " on " + conflicts.stream().sorted().toList());
+        }
+    }
+
+    /*
+     * Bulk writes bypass AppointmentServiceImpl and Hibernate's entity events, so the hooks they would trigger per
+     * appointment are called here (the collection version and analytics are updated inside each transaction
+     * instead): the change feed, reminders, the audit trail and, for cancelled occurrences, the waitlist. Runs
+     * after the bulk write has committed.
+     */
+    private void publish(AppointmentChangeEvent.Type type, long seriesId, List<Change> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        List<AuditLogEntry> audit = new ArrayList<>();
+        for (Change change : changes) {
+            AppointmentInformation appointment = change.appointment();
+            appointmentChangeFeed.publish(type, appointment);
+            appointmentReminderScheduler.appointmentChanged(appointment);
+            addAuditEntries(audit, seriesId, change);
+        }
+        auditLogService.record(audit);
+        if (type == AppointmentChangeEvent.Type.CANCELLED) {
+            for (Change change : changes) {
+                AppointmentInformation appointment = change.appointment();
+                appointmentService.offerToWaitlist(appointment.doctor().id(), appointment.doctor().department(), appointment);
+            }
+        }
+    }
+
+    // The fields AuditEventListener would have logged for this insert or update
+    private static void addAuditEntries(List<AuditLogEntry> entries, long seriesId, Change change) {
+        AppointmentInformation after = change.appointment();
+        AppointmentAnalyticsService.Slot before = change.before();
+        AuditLogEntry.Action action = before == null ? AuditLogEntry.Action.INSERT : AuditLogEntry.Action.UPDATE;
+        if (before == null) {
+            addAuditEntry(entries, action, after.id(), "patient", null, after.patient().id());
+            addAuditEntry(entries, action, after.id(), "seriesId", null, seriesId);
+        }
+        addAuditEntry(entries, action, after.id(), "doctor", before == null ? null : before.doctorId(), after.doctor().id());
+        addAuditEntry(entries, action, after.id(), "date", before == null ? null : before.date(), after.date());
+        addAuditEntry(entries, action, after.id(), "time", change.timeBefore(), after.time());
+        addAuditEntry(entries, action, after.id(), "status", before == null ? null : before.status(), after.status());
+    }
+
+    private static void addAuditEntry(List<AuditLogEntry> entries, AuditLogEntry.Action action, long appointmentId,
+                                      String field, Object oldValue, Object newValue) {
+        String before = oldValue == null ? null : oldValue.toString();
+        String after = newValue == null ? null : newValue.toString();
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        entries.add(AuditLogEntry.builder()
+                .facility(FacilityContext.current())
+                .entityType(Appointment.class.getSimpleName())
+                .entityId(appointmentId)
+                .action(action)
+                .fieldName(field)
+                .oldValue(before)
+                .newValue(after)
+                .changedBy(AuditLogService.currentActor())
+                .changedAt(Instant.now())
+                .build());
+    }
+
+    private AppointmentSeries findSeries(long id) {
+        return seriesRepository.findById(id)
+                .orElseThrow(() -> new AppointmentSeriesNotFoundException("Appointment series with the id of " + id + " not found"));
+    }
+
+    // Allergies are loaded here so the DTO can still be serialized once the session is gone
+    private static PatientInformation patientDto(Patient patient) {
+        Hibernate.initialize(patient.getAllergies());
+        return PatientMapper.toDto(patient);
+    }
+
+    private static AppointmentSeriesInformation toDto(AppointmentSeries series, int affected) {
+        return toDto(series, patientDto(series.getPatient()), affected);
+    }
+
+    private static AppointmentSeriesInformation toDto(AppointmentSeries series, PatientInformation patient, int affected) {
+        return new AppointmentSeriesInformation(
+                series.getId(),
+                patient,
+                DoctorMapper.toSummaryDto(series.getDoctor()),
+                series.getRecurrence(),
+                series.getRepeatEvery(),
+                series.getStartDate(),
+                series.getTime(),
+                series.getEndDate(),
+                series.getMaxOccurrences(),
+                series.getMaterializedThrough(),
+                series.isActive(),
+                affected);
+    }
+}
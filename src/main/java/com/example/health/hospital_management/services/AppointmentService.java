@@ -1,6 +1,7 @@
 package com.example.health.hospital_management.services;
 
 import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.dtos.NormalizedAppointments;
 import com.example.health.hospital_management.dtos.PostNewAppointmentRequest;
 import com.example.health.hospital_management.dtos.UpdateAppointmentRequest;
 import com.example.health.hospital_management.entities.Appointment;
@@ -13,8 +14,12 @@ import java.util.List;
 public interface AppointmentService {
     AppointmentInformation createAppointment(PostNewAppointmentRequest request);
     List<AppointmentInformation> getAllAppointments();
+    List<AppointmentInformation> getAppointmentsAfter(long afterId, int limit);
     List<AppointmentInformation> getAppointmentsById(long id, HospitalRole role);
+    NormalizedAppointments getAllAppointmentsNormalized();
+    NormalizedAppointments getAppointmentsByIdNormalized(long id, HospitalRole role);
     AppointmentInformation getAppointmentById(long id);
     AppointmentInformation updateAppointment(long id, UpdateAppointmentRequest request);
     AppointmentInformation cancelAppointment(long id);
+    void offerToWaitlist(long doctorId, String department, AppointmentInformation cancelled);
 }
@@ -1,6 +1,8 @@
 package com.example.health.hospital_management.services;
 
+import com.example.health.hospital_management.dtos.AppointmentChangeEvent;
 import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.dtos.NormalizedAppointments;
 import com.example.health.hospital_management.dtos.PostNewAppointmentRequest;
 import com.example.health.hospital_management.dtos.UpdateAppointmentRequest;
 import com.example.health.hospital_management.entities.Appointment;
@@ -14,11 +16,19 @@ import com.example.health.hospital_management.exceptions.PatientNotFoundExceptio
 import com.example.health.hospital_management.repositories.AppointmentRepository;
 import com.example.health.hospital_management.repositories.DoctorRepository;
 import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.concurrency.RequestCoalescer;
 import com.example.health.hospital_management.utils.mappers.AppointmentMapper;
+import com.example.health.hospital_management.utils.transaction.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -26,8 +36,16 @@ public class AppointmentServiceImpl implements AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final AppointmentChangeFeed appointmentChangeFeed;
+    private final ResourceVersionService resourceVersionService;
+    private final RequestCoalescer requestCoalescer;
+    private final AppointmentAnalyticsService appointmentAnalyticsService;
+    private final AppointmentReminderScheduler appointmentReminderScheduler;
+    private final WaitlistService waitlistService;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
+    @Transactional
     public AppointmentInformation createAppointment(PostNewAppointmentRequest request) {
         Patient patient = patientRepository.findById(request.patientId())
                 .orElseThrow(() -> new PatientNotFoundException(
@@ -44,43 +62,79 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .time(request.time())
                 .status(Status.BOOKED)
                 .build();
-        return AppointmentMapper.toDto(appointmentRepository.save(appointment));
+        appointment = appointmentRepository.save(appointment);
+        long id = appointment.getId();
+        AppointmentAnalyticsService.Slot slot = AppointmentAnalyticsService.Slot.of(appointment);
+        AppointmentInformation created = AppointmentMapper.toDto(appointment);
+        resourceVersionService.appointmentsChanged();
+        appointmentAnalyticsService.record(id, null, slot);
+        AfterCommit.run(() -> {
+            appointmentChangeFeed.publish(AppointmentChangeEvent.Type.CREATED, created);
+            appointmentReminderScheduler.appointmentChanged(created);
+        });
+        return created;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AppointmentInformation> getAllAppointments() {
-        return appointmentRepository.findAll()
-                .stream()
-                .map(AppointmentMapper::toDto)
-                .toList();
+        return AppointmentMapper.toDtos(appointmentRepository.findAll());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AppointmentInformation> getAppointmentsAfter(long afterId, int limit) {
+        return AppointmentMapper.toDtos(appointmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AppointmentInformation> getAppointmentsById(long id, HospitalRole role) {
         /*
          * We need to determine what type of id it is
          * it can either belong to a doctor or patient
          * */
+        return requestCoalescer.coalesce("appointments.byOwner", () -> {
+            var list = switch (role) {
+                case PATIENT -> appointmentRepository.findAllByPatientId(id);
+                case STAFF, ADMIN -> appointmentRepository.findAllByDoctorId(id);
+            };
+            return AppointmentMapper.toDtos(list);
+        }, id, role == HospitalRole.PATIENT);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NormalizedAppointments getAllAppointmentsNormalized() {
+        return AppointmentMapper.toNormalized(appointmentRepository.findAll());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NormalizedAppointments getAppointmentsByIdNormalized(long id, HospitalRole role) {
         var list = switch (role) {
             case PATIENT -> appointmentRepository.findAllByPatientId(id);
             case STAFF, ADMIN -> appointmentRepository.findAllByDoctorId(id);
         };
-        return list.stream()
-                .map(AppointmentMapper::toDto)
-                .toList();
+        return AppointmentMapper.toNormalized(list);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public AppointmentInformation getAppointmentById(long id) {
         return appointmentRepository.findById(id)
                 .map(AppointmentMapper::toDto)
                 .orElseThrow(() -> new AppointmentNotFoundException("Appointment with the id of " + id + " not found"));
     }
 
+    // One transaction: the managed appointment is flushed on commit, so there is no separate save round trip
     @Override // What would be the bug with this signature
+    @Transactional
     public AppointmentInformation updateAppointment(long id,UpdateAppointmentRequest request) {
         return appointmentRepository.findById(id)
                 .map(appointment -> {
+                    Status previous = appointment.getStatus();
+                    AppointmentAnalyticsService.Slot before = AppointmentAnalyticsService.Slot.of(appointment);
                     appointment.setDoctor(
                             doctorRepository.findById(request.doctorId())
                                     .orElseThrow(() -> new DoctorNotFoundException(
@@ -88,20 +142,77 @@ public class AppointmentServiceImpl implements AppointmentService {
                                     ))
                     );
                     appointment.setStatus(request.status());
-                    return appointmentRepository.save(appointment);
+                    AppointmentAnalyticsService.Slot after = AppointmentAnalyticsService.Slot.of(appointment);
+                    AppointmentInformation updated = AppointmentMapper.toDto(appointment);
+                    Runnable offer = freedSlotOffer(previous, appointment, updated);
+                    resourceVersionService.appointmentsChanged();
+                    appointmentAnalyticsService.record(id, before, after);
+                    AfterCommit.run(() -> {
+                        appointmentChangeFeed.publish(updated.status() == Status.CANCELLED
+                                ? AppointmentChangeEvent.Type.CANCELLED
+                                : AppointmentChangeEvent.Type.UPDATED, updated);
+                        appointmentReminderScheduler.appointmentChanged(updated);
+                        offer.run();
+                    });
+                    return updated;
                 })
-                .map(AppointmentMapper::toDto)
                 .orElseThrow(() -> new AppointmentNotFoundException("Appointment with the id of " + id + " not found"));
     }
 
     @Override
+    @Transactional
     public AppointmentInformation cancelAppointment(long id) {
-        return appointmentRepository.findById(id)
-                .map(appointment -> {
-                    appointment.setStatus(Status.CANCELLED);
-                    return appointmentRepository.save(appointment);
-                })
-                .map(AppointmentMapper::toDto)
+        Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new AppointmentNotFoundException("Appointment with the id of " + id + " not found"));
+        Status previous = appointment.getStatus();
+        AppointmentAnalyticsService.Slot before = AppointmentAnalyticsService.Slot.of(appointment);
+        appointment.setStatus(Status.CANCELLED);
+        AppointmentAnalyticsService.Slot after = AppointmentAnalyticsService.Slot.of(appointment);
+        AppointmentInformation cancelled = AppointmentMapper.toDto(appointment);
+        Runnable offer = freedSlotOffer(previous, appointment, cancelled);
+        resourceVersionService.appointmentsChanged();
+        appointmentAnalyticsService.record(id, before, after);
+        AfterCommit.run(() -> {
+            appointmentChangeFeed.publish(AppointmentChangeEvent.Type.CANCELLED, cancelled);
+            appointmentReminderScheduler.appointmentChanged(cancelled);
+            offer.run();
+        });
+        return cancelled;
+    }
+
+    // Built while the session is open so the doctor is still loaded; the returned offer is run after commit
+    private Runnable freedSlotOffer(Status previous, Appointment appointment, AppointmentInformation changed) {
+        if (previous != Status.BOOKED || appointment.getStatus() != Status.CANCELLED || appointment.getDoctor() == null) {
+            return () -> { };
+        }
+        long doctorId = appointment.getDoctor().getId();
+        String department = appointment.getDoctor().getDepartment();
+        return () -> offerToWaitlist(doctorId, department, changed);
+    }
+
+    /*
+     * Books the freed slot for the best-ranked waiting patient once the cancellation has committed. The booking
+     * gets a transaction of its own, so a failed booking never fails the cancellation. A patient who no longer
+     * exists is dropped from the waitlist and the slot goes to the next one in line.
+     */
+    @Override
+    public void offerToWaitlist(long doctorId, String department, AppointmentInformation cancelled) {
+        TransactionTemplate booking = new TransactionTemplate(transactionManager);
+        booking.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Optional<WaitlistService.Claim> next;
+        while ((next = waitlistService.claim(doctorId, department, cancelled.date(), cancelled.time())).isPresent()) {
+            WaitlistService.Claim claim = next.get();
+            try {
+                AppointmentInformation booked = booking.execute(status -> createAppointment(new PostNewAppointmentRequest(
+                        claim.candidate().patientId(), doctorId, cancelled.date(), cancelled.time())));
+                waitlistService.matched(claim, booked.id());
+                return;
+            } catch (PatientNotFoundException e) {
+                waitlistService.drop(claim, e);
+            } catch (RuntimeException e) {
+                waitlistService.release(claim, e);
+                return;
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AuditLogInformation;
+import com.example.health.hospital_management.entities.AuditLogEntry;
+import com.example.health.hospital_management.repositories.AuditLogRepository;
+import com.example.health.hospital_management.utils.concurrency.BoundedBuffer;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind audit trail. Entity listeners hand field-level changes to {@link #record}, which only
+ * enqueues; a scheduled writer inserts them into eva_audit_log in JDBC batches. When the buffer is full
+ * new entries are dropped and counted rather than slowing down the write that produced them.
+ * A facility whose database rejects a batch keeps its entries in a retry backlog of its own, capped at
+ * maxRetainedPerFacility, while the buffer keeps draining for every other facility.
+ */
+@Service
+@Slf4j
+public class AuditLogService {
+    private static final String INSERT_SQL = """
+            INSERT INTO eva_audit_log (facility, entity_type, entity_id, action, field_name, old_value, new_value, changed_by, changed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditLogRepository auditLogRepository;
+    private final BoundedBuffer<AuditLogEntry> buffer;
+    private final int batchSize;
+    private final int maxRetainedPerFacility;
+    private final Map<String, List<AuditLogEntry>> retries = new HashMap<>();
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failures;
+
+    public AuditLogService(JdbcTemplate jdbcTemplate,
+                           AuditLogRepository auditLogRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${audit.buffer-capacity:10000}") int bufferCapacity,
+                           @Value("${audit.batch-size:500}") int batchSize,
+                           @Value("${audit.max-retained-per-facility:10000}") int maxRetainedPerFacility) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditLogRepository = auditLogRepository;
+        this.buffer = new BoundedBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.maxRetainedPerFacility = maxRetainedPerFacility;
+        this.dropped = Counter.builder("audit.entries.dropped").register(meterRegistry);
+        this.written = Counter.builder("audit.entries.written").register(meterRegistry);
+        this.failures = Counter.builder("audit.flush.failures").register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, BoundedBuffer::size).register(meterRegistry);
+    }
+
+    public void record(List<AuditLogEntry> entries) {
+        for (AuditLogEntry entry : entries) {
+            if (!buffer.offer(entry)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    // Whoever made the current request, or "system" for scheduled jobs
+    public static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "system" : authentication.getName();
+    }
+
+    public List<AuditLogInformation> getHistory(String entityType, long entityId, int limit) {
+        return auditLogRepository.findAllByFacilityAndEntityTypeAndEntityIdOrderByIdDesc(
+                        FacilityContext.current(), entityType, entityId, Limit.of(limit))
+                .stream()
+                .map(entry -> new AuditLogInformation(
+                        entry.getId(),
+                        entry.getEntityType(),
+                        entry.getEntityId(),
+                        entry.getAction().name(),
+                        entry.getFieldName(),
+                        entry.getOldValue(),
+                        entry.getNewValue(),
+                        entry.getChangedBy(),
+                        entry.getChangedAt()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${audit.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // A facility that fails once is not tried again this run; its new entries join its backlog
+        Set<String> failing = new HashSet<>();
+        retries.entrySet().removeIf(backlog -> {
+            if (writeBacklog(backlog.getKey(), backlog.getValue())) {
+                return true;
+            }
+            failing.add(backlog.getKey());
+            return false;
+        });
+        List<AuditLogEntry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            Map<String, List<AuditLogEntry>> byFacility = batch.stream()
+                    .collect(Collectors.groupingBy(AuditLogEntry::getFacility));
+            byFacility.forEach((facility, entries) -> {
+                if (failing.contains(facility) || !write(facility, entries)) {
+                    failing.add(facility);
+                    retain(facility, entries);
+                }
+            });
+            batch.clear();
+        }
+    }
+
+    // Writes the backlog a batch at a time, removing what was written; false if a batch failed
+    private boolean writeBacklog(String facility, List<AuditLogEntry> backlog) {
+        while (!backlog.isEmpty()) {
+            List<AuditLogEntry> next = backlog.subList(0, Math.min(batchSize, backlog.size()));
+            if (!write(facility, next)) {
+                return false;
+            }
+            next.clear();
+        }
+        return true;
+    }
+
+    private boolean write(String facility, List<AuditLogEntry> entries) {
+        try {
+            FacilityContext.callAs(facility, () -> insert(entries));
+            written.increment(entries.size());
+            return true;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Writing {} audit entries for facility {} failed, will retry", entries.size(), facility, e);
+            return false;
+        }
+    }
+
+    private void retain(String facility, List<AuditLogEntry> entries) {
+        List<AuditLogEntry> backlog = retries.computeIfAbsent(facility, key -> new ArrayList<>());
+        int kept = Math.clamp(maxRetainedPerFacility - backlog.size(), 0, entries.size());
+        backlog.addAll(entries.subList(0, kept));
+        dropped.increment(entries.size() - kept);
+    }
+
+    private int[][] insert(List<AuditLogEntry> entries) {
+        return jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setString(1, entry.getFacility());
+            statement.setString(2, entry.getEntityType());
+            statement.setLong(3, entry.getEntityId());
+            statement.setString(4, entry.getAction().name());
+            statement.setString(5, entry.getFieldName());
+            statement.setString(6, entry.getOldValue());
+            statement.setString(7, entry.getNewValue());
+            statement.setString(8, entry.getChangedBy());
+            statement.setTimestamp(9, Timestamp.from(entry.getChangedAt()));
+        });
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        int unwritten = retries.values().stream().mapToInt(List::size).sum() + buffer.size();
+        if (unwritten > 0) {
+            log.error("{} audit entries could not be written before shutdown", unwritten);
+        }
+    }
+}
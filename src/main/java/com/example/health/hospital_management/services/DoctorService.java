@@ -12,6 +12,7 @@ import java.util.List;
 @Service
 public interface DoctorService {
     List<DoctorInformation> getAllDoctors();
+    List<DoctorInformation> getDoctorsAfter(long afterId, int limit);
     DoctorInformation getDoctorById(long id);
     List<DoctorInformation> getDoctorsBySpecialization(String specialization);
     DoctorInformation createDoctor(PostNewDoctorRequest request);
@@ -6,9 +6,14 @@ import com.example.health.hospital_management.dtos.UpdateDoctorRequest;
 import com.example.health.hospital_management.entities.Doctor;
 import com.example.health.hospital_management.exceptions.DoctorNotFoundException;
 import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.utils.cache.SerializedResponseCache;
+import com.example.health.hospital_management.utils.concurrency.RequestCoalescer;
 import com.example.health.hospital_management.utils.mappers.DoctorMapper;
+import com.example.health.hospital_management.utils.transaction.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -17,36 +22,64 @@ import java.util.List;
 public class DoctorServiceImpl implements DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final ReferenceDataService referenceDataService;
+    private final ResourceVersionService resourceVersionService;
+    private final SerializedResponseCache serializedResponseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final WaitlistService waitlistService;
 
     @Override
+    @Transactional(readOnly = true)
     public List<DoctorInformation> getAllDoctors() {
-        return doctorRepository.findAll()
+        return requestCoalescer.coalesce("doctors.all", () -> doctorRepository.findAll()
                 .stream()
                 .map(DoctorMapper::toDto)
-                .toList();
+                .toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<DoctorInformation> getDoctorsAfter(long afterId, int limit) {
+        return requestCoalescer.coalesce("doctors.batch", () -> doctorRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit))
+                .stream()
+                .map(DoctorMapper::toDto)
+                .toList(), afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public DoctorInformation getDoctorById(long id) {
         return DoctorMapper.toDto(doctorRepository.findById(id)
                 .orElseThrow(() -> new DoctorNotFoundException("Doctor with the id " + id + " not found!")));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<DoctorInformation> getDoctorsBySpecialization(String specialization) {
-        return doctorRepository.findAllBySpecializationIgnoreCase(specialization)
+        String canonical = referenceDataService.canonicalSpecialization(specialization);
+        if (canonical == null) {
+            return List.of();
+        }
+        return doctorRepository.findAllBySpecialization(canonical)
                 .stream()
                 .map(DoctorMapper::toDto)
                 .toList();
     }
 
     @Override
+    @Transactional
     public DoctorInformation createDoctor(PostNewDoctorRequest request) {
         Doctor doctor = DoctorMapper.toEntity(request);
-        return DoctorMapper.toDto(doctorRepository.save(doctor));
+        doctor = doctorRepository.save(doctor);
+        resourceVersionService.doctorsChanged();
+        AfterCommit.run(this::directoryChanged);
+        return DoctorMapper.toDto(doctor);
     }
 
+    // One transaction: the managed doctor is flushed on commit, so there is no separate save round trip
     @Override
+    @Transactional
     public DoctorInformation updateDoctor(long id, UpdateDoctorRequest request) {
         Doctor doctor = doctorRepository.findById(id)
                 .orElseThrow(() -> new DoctorNotFoundException("Doctor with the id " + id + " not found!"));
@@ -55,14 +88,26 @@ public class DoctorServiceImpl implements DoctorService {
         doctor.setPhone(request.phone());
         doctor.setDepartment(request.department());
         doctor.setSpecialization(request.specialization());
-        return DoctorMapper.toDto(doctorRepository.save(doctor));
+        resourceVersionService.doctorsChanged();
+        AfterCommit.run(this::directoryChanged);
+        return DoctorMapper.toDto(doctor);
     }
 
     @Override
+    @Transactional
     public void deleteDoctorById(long id) {
         if (!doctorRepository.existsById(id)) {
             throw new DoctorNotFoundException("Doctor with the id " + id + " not found!");
         }
         doctorRepository.deleteById(id);
+        resourceVersionService.doctorsChanged();
+        AfterCommit.run(() -> {
+            directoryChanged();
+            waitlistService.doctorDeleted(id);
+        });
+    }
+
+    private void directoryChanged() {
+        serializedResponseCache.invalidate(SerializedResponseCache.DOCTOR_DIRECTORY);
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AppointmentExportRow;
+import com.example.health.hospital_management.dtos.PatientExportRow;
+import com.example.health.hospital_management.exceptions.ServiceOverloadedException;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.export.ExportFormat;
+import com.example.health.hospital_management.utils.export.RowWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full-table exports written row by row from a forward-only cursor, so memory stays flat however many
+ * rows there are. Each export holds one pooled connection for its whole run, so only a few may run at once;
+ * the rest are turned away rather than left to starve regular requests of connections.
+ */
+@Service
+public class ExportService {
+    private static final List<String> APPOINTMENT_COLUMNS = List.of(
+            "id", "date", "time", "status", "patientId", "patientFirstName", "patientLastName",
+            "doctorId", "doctorFirstName", "doctorLastName");
+    private static final List<String> PATIENT_COLUMNS = List.of(
+            "id", "firstName", "lastName", "dateOfBirth", "biologicalSex", "phoneNumber", "address",
+            "primaryDoctorId", "createdAt", "allergies");
+
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore permits;
+    private final int flushEvery;
+    private final Counter rowsExported;
+
+    public ExportService(AppointmentRepository appointmentRepository,
+                         PatientRepository patientRepository,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${export.max-concurrent:2}") int maxConcurrent,
+                         @Value("${export.flush-every-rows:1000}") int flushEvery) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.permits = new Semaphore(maxConcurrent);
+        this.flushEvery = flushEvery;
+        this.rowsExported = Counter.builder("export.rows").register(meterRegistry);
+    }
+
+    public StreamingResponseBody exportAppointments(ExportFormat format, boolean gzip,
+                                                    LocalDate from, LocalDate to, Long doctorId) {
+        return export(format, gzip, APPOINTMENT_COLUMNS, writer -> {
+            try (Stream<AppointmentExportRow> rows = appointmentRepository.streamForExport(from, to, doctorId)) {
+                long count = 0;
+                for (Iterator<AppointmentExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    AppointmentExportRow row = it.next();
+                    writer.row(row.id(), row.date(), row.time(), row.status(), row.patientId(),
+                            row.patientFirstName(), row.patientLastName(), row.doctorId(),
+                            row.doctorFirstName(), row.doctorLastName());
+                    count = written(writer, count);
+                }
+            }
+        });
+    }
+
+    // The date range applies to when the patient was registered
+    public StreamingResponseBody exportPatients(ExportFormat format, boolean gzip,
+                                                LocalDate from, LocalDate to, Long doctorId) {
+        LocalDateTime registeredFrom = from == null ? null : from.atStartOfDay();
+        LocalDateTime registeredBefore = to == null ? null : to.plusDays(1).atStartOfDay();
+        return export(format, gzip, PATIENT_COLUMNS, writer -> {
+            try (Stream<PatientExportRow> rows = patientRepository.streamForExport(registeredFrom, registeredBefore, doctorId)) {
+                long count = 0;
+                PatientExportRow current = null;
+                StringJoiner allergies = new StringJoiner(";");
+                // The cursor yields one row per allergy in patient id order; fold each run into one line
+                for (Iterator<PatientExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    PatientExportRow row = it.next();
+                    if (current != null && current.id() != row.id()) {
+                        writePatient(writer, current, allergies.toString());
+                        count = written(writer, count);
+                        allergies = new StringJoiner(";");
+                    }
+                    current = row;
+                    if (row.allergy() != null && !row.allergy().isBlank()) {
+                        allergies.add(row.allergy().trim());
+                    }
+                }
+                if (current != null) {
+                    writePatient(writer, current, allergies.toString());
+                    written(writer, count);
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        void writeTo(RowWriter writer) throws IOException;
+    }
+
+    private StreamingResponseBody export(ExportFormat format, boolean gzip, List<String> columns, RowSource source) {
+        if (!permits.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many exports are running, please retry shortly");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        // The body may never run if the request times out or fails before it is scheduled, so the async
+        // completion of the request gives the permit back too
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(release,
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                            release.run();
+                        }
+                    });
+        }
+        return outputStream -> {
+            if (released.get()) {
+                // The request already timed out or failed while the export was waiting to start
+                return;
+            }
+            try {
+                OutputStream target = StreamUtils.nonClosing(outputStream);
+                if (gzip) {
+                    target = new GZIPOutputStream(target, 64 * 1024);
+                }
+                try (RowWriter writer = RowWriter.of(format, target, columns, objectMapper)) {
+                    readOnlyTransaction.executeWithoutResult(status -> {
+                        try {
+                            source.writeTo(writer);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    private void writePatient(RowWriter writer, PatientExportRow row, String allergies) throws IOException {
+        writer.row(row.id(), row.firstName(), row.lastName(), row.dateOfBirth(), row.biologicalSex(),
+                row.phoneNumber(), row.address(), row.primaryDoctorId(), row.createdAt(), allergies);
+    }
+
+    private long written(RowWriter writer, long count) throws IOException {
+        rowsExported.increment();
+        if (++count % flushEvery == 0) {
+            writer.flush();
+        }
+        return count;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.health.hospital_management.services;
 
 import com.example.health.hospital_management.entities.UserCredential;
+import com.example.health.hospital_management.entities.enums.HospitalRole;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
@@ -11,7 +13,6 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
-import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,13 +26,37 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Value("${jwt.expiration}")
+    private long jwtExpiration;
+
+    private volatile SecretKey secretKey;
+
     public String generateToken(String email) {
-        UserCredential userCredential = (UserCredential) userDetailsService.loadUserByUsername(email);
+        return generateToken((UserCredential) userDetailsService.loadUserByUsername(email));
+    }
+
+    public String generateToken(UserCredential userCredential) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", userCredential.getRole());
+        claims.put("facility", userCredential.getFacility());
         return generateToken(claims, userCredential);
     }
 
+    /**
+     * Verifies the signature and expiry once and rebuilds the principal from the claims,
+     * so authenticated requests do not need a database lookup.
+     */
+    public UserCredential parseUser(String token) {
+        Claims claims = extractAllClaims(token);
+        String facility = claims.get("facility", String.class);
+        return UserCredential.builder()
+                .email(claims.getSubject())
+                .role(HospitalRole.valueOf(claims.get("role", String.class)))
+                // Tokens issued before facilities existed belong to the default one
+                .facility(facility == null ? FacilityContext.DEFAULT_FACILITY : facility)
+                .build();
+    }
+
     public String extractEmail(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -69,13 +94,16 @@ public class JwtService {
                 .claims(claims)
                 .subject(userCredential.getEmail())
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
                 .signWith(getSecretKey())
                 .compact();
     }
 
     private SecretKey getSecretKey() {
-        byte[] encodedKey = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(encodedKey);
+        if (secretKey == null) {
+            byte[] encodedKey = Decoders.BASE64.decode(jwtSecret);
+            secretKey = Keys.hmacShaKeyFor(encodedKey);
+        }
+        return secretKey;
     }
 }
\ No newline at end of file
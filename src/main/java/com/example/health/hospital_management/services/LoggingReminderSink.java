@@ -0,0 +1,14 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AppointmentReminder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class LoggingReminderSink implements ReminderSink {
+    @Override
+    public void send(AppointmentReminder reminder) {
+        log.info("{} for appointment {} at {}", reminder.type(), reminder.appointmentId(), reminder.appointmentAt());
+    }
+}
@@ -11,6 +11,7 @@ import java.util.List;
 public interface PatientService {
     PatientInformation createPatient(PostNewPatientRequest request);
     List<PatientInformation> getAllPatients();
+    List<PatientInformation> getPatientsAfter(long afterId, int limit);
     PatientInformation getPatientById(long id);
     void deletePatientById(long id);
     PatientInformation updatePatient(long id, UpdatePatientRequest request);
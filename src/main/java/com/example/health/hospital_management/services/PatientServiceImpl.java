@@ -8,10 +8,17 @@ import com.example.health.hospital_management.exceptions.DoctorNotFoundException
 import com.example.health.hospital_management.exceptions.PatientNotFoundException;
 import com.example.health.hospital_management.repositories.DoctorRepository;
 import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.cache.PatientProfileCache;
+import com.example.health.hospital_management.utils.cache.SerializedResponseCache;
 import com.example.health.hospital_management.utils.mappers.PatientMapper;
+import com.example.health.hospital_management.utils.transaction.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -21,15 +28,32 @@ import java.util.List;
 public class PatientServiceImpl implements PatientService{
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final SerializedResponseCache serializedResponseCache;
+    private final ReferenceDataService referenceDataService;
+    private final AllergyIndexService allergyIndexService;
+    private final PatientProfileCache patientProfileCache;
+    private final WaitlistService waitlistService;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
+    @Transactional
     public PatientInformation createPatient(PostNewPatientRequest request) {
         Patient newPatient = PatientMapper.toEntity(request);
-        newPatient = patientRepository.save(newPatient);
-        return PatientMapper.toDto(newPatient);
+        newPatient.setAllergies(referenceDataService.normalizeAllergies(newPatient.getAllergies()));
+        Patient saved = patientRepository.save(newPatient);
+        PatientInformation created = PatientMapper.toDto(saved);
+        resourceVersionService.patientsChanged();
+        AfterCommit.run(() -> {
+            patientProfileCache.put(created);
+            allergyIndexService.patientChanged(saved.getId(), saved.getAllergies());
+            serializedResponseCache.invalidate(SerializedResponseCache.DOCTOR_DIRECTORY);
+        });
+        return created;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PatientInformation> getAllPatients() {
         return patientRepository.findAll()
                 .stream()
@@ -38,39 +62,81 @@ public class PatientServiceImpl implements PatientService{
     }
 
     @Override
-    public PatientInformation getPatientById(long id) {
-        return patientRepository.findById(id)
+    @Transactional(readOnly = true)
+    public List<PatientInformation> getPatientsAfter(long afterId, int limit) {
+        return patientRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit))
+                .stream()
                 .map(PatientMapper::toDto)
-                .orElseThrow(() -> new PatientNotFoundException("Patient with id " + id + " not found"));
+                .toList();
     }
 
+    // A hit is served from the off-heap profile store without opening a transaction
     @Override
+    public PatientInformation getPatientById(long id) {
+        PatientInformation cached = patientProfileCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            long generation = patientProfileCache.generation();
+            PatientInformation patient = patientRepository.findById(id)
+                    .map(PatientMapper::toDto)
+                    .orElseThrow(() -> new PatientNotFoundException("Patient with id " + id + " not found"));
+            // Still inside the transaction, where the lazy allergies can be read
+            patientProfileCache.putIfUnchanged(patient, generation);
+            return patient;
+        });
+    }
+
+    @Override
+    @Transactional
     public void deletePatientById(long id) {
         if(!patientRepository.existsById(id))
             throw new PatientNotFoundException("Patient with id of " + id + " not found!");
         patientRepository.deleteById(id);
+        resourceVersionService.patientsChanged();
+        AfterCommit.run(() -> {
+            patientProfileCache.remove(id);
+            allergyIndexService.patientChanged(id, List.of());
+            waitlistService.patientDeleted(id);
+            serializedResponseCache.invalidate(SerializedResponseCache.patientKey(id));
+            serializedResponseCache.invalidate(SerializedResponseCache.DOCTOR_DIRECTORY);
+        });
     }
 
+    // One transaction: the managed patient is flushed on commit, so there is no separate save round trip
     @Override
+    @Transactional
     public PatientInformation updatePatient(long id, UpdatePatientRequest request) {
-        return PatientMapper.toDto(patientRepository.findById(id)
+        return patientRepository.findById(id)
                 .map(patient -> {
                              patient.setFirstName(request.firstName());
                              patient.setLastName(request.lastName());
                              patient.setPhoneNumber(request.phoneNumber());
                              patient.setAddress(request.address());
-                             patient.setAllergies(request.allergies());
+                             patient.setAllergies(referenceDataService.normalizeAllergies(request.allergies()));
                              patient.setPrimaryDoctor(doctorRepository.findById(request.doctorId()).orElseThrow(() ->
                                     new DoctorNotFoundException("Doctor with id of "
                                             + request.doctorId() +
                                             " not found!")
                             ));
-                            return patientRepository.save(patient);
+                            List<String> allergies = patient.getAllergies();
+                            PatientInformation updated = PatientMapper.toDto(patient);
+                            resourceVersionService.patientsChanged();
+                            AfterCommit.run(() -> {
+                                patientProfileCache.put(updated);
+                                allergyIndexService.patientChanged(id, allergies);
+                                // The doctor directory embeds each doctor's patients
+                                serializedResponseCache.invalidate(SerializedResponseCache.patientKey(id));
+                                serializedResponseCache.invalidate(SerializedResponseCache.DOCTOR_DIRECTORY);
+                            });
+                            return updated;
                         }
                 )
                 .orElseThrow(() -> new PatientNotFoundException("Patient with id of " +
                         id +
-                        " not found!"))
-        );
+                        " not found!"));
     }
 }
\ No newline at end of file
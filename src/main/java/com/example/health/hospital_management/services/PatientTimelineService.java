@@ -0,0 +1,88 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.PatientTimeline;
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.exceptions.PatientNotFoundException;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.mappers.DoctorMapper;
+import com.example.health.hospital_management.utils.mappers.PatientMapper;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds a patient chart with three queries run side by side: the patient with allergies and primary
+ * doctor, one page of appointments with their doctors, and the appointment count. Page size is capped
+ * so the response stays bounded however long the patient's history is.
+ */
+@Service
+public class PatientTimelineService {
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final int maxPageSize;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PatientTimelineService(PatientRepository patientRepository,
+                                  AppointmentRepository appointmentRepository,
+                                  @Value("${patient.timeline.max-page-size:50}") int maxPageSize) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public PatientTimeline getTimeline(long patientId, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.clamp(size, 1, maxPageSize);
+        CompletableFuture<Optional<Patient>> patient = CompletableFuture.supplyAsync(
+                FacilityContext.wrap(() -> patientRepository.findChartById(patientId)), executor);
+        CompletableFuture<List<Appointment>> appointments = CompletableFuture.supplyAsync(
+                FacilityContext.wrap(() -> appointmentRepository.findTimelineByPatientId(patientId, PageRequest.of(pageNumber, pageSize))), executor);
+        CompletableFuture<Long> total = CompletableFuture.supplyAsync(
+                FacilityContext.wrap(() -> appointmentRepository.countByPatientId(patientId)), executor);
+
+        Patient chart = join(patient)
+                .orElseThrow(() -> new PatientNotFoundException("Patient with id " + patientId + " not found"));
+        return new PatientTimeline(
+                PatientMapper.toDto(chart),
+                DoctorMapper.toSummaryDto(chart.getPrimaryDoctor()),
+                join(appointments).stream()
+                        .map(appointment -> new PatientTimeline.TimelineEntry(
+                                appointment.getId(),
+                                DoctorMapper.toSummaryDto(appointment.getDoctor()),
+                                appointment.getDate(),
+                                appointment.getTime(),
+                                appointment.getStatus()))
+                        .toList(),
+                pageNumber,
+                pageSize,
+                join(total)
+        );
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
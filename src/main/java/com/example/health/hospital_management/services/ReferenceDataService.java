@@ -0,0 +1,134 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.entities.Allergy;
+import com.example.health.hospital_management.entities.Department;
+import com.example.health.hospital_management.entities.Specialization;
+import com.example.health.hospital_management.repositories.AllergyRepository;
+import com.example.health.hospital_management.repositories.DepartmentRepository;
+import com.example.health.hospital_management.repositories.SpecializationRepository;
+import com.example.health.hospital_management.utils.dictionary.TermDictionary;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+@Service
+public class ReferenceDataService {
+    private final DepartmentRepository departmentRepository;
+    private final SpecializationRepository specializationRepository;
+    private final AllergyRepository allergyRepository;
+    private final TermDictionary departments;
+    private final TermDictionary specializations;
+    private final TermDictionary allergies;
+
+    public ReferenceDataService(DepartmentRepository departmentRepository,
+                                SpecializationRepository specializationRepository,
+                                AllergyRepository allergyRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.departmentRepository = departmentRepository;
+        this.specializationRepository = specializationRepository;
+        this.allergyRepository = allergyRepository;
+        // New terms are written in their own transaction so they can be created while a doctor row is being flushed.
+        // The ids are shared by every facility, so terms always live in the default database.
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.departments = new TermDictionary(name -> inDefaultFacility(() -> requiresNew.execute(status ->
+                departmentRepository.save(Department.builder().name(name).build()).getId())));
+        this.specializations = new TermDictionary(name -> inDefaultFacility(() -> requiresNew.execute(status ->
+                specializationRepository.save(Specialization.builder().name(name).build()).getId())));
+        this.allergies = new TermDictionary(name -> inDefaultFacility(() -> requiresNew.execute(status ->
+                allergyRepository.save(Allergy.builder().name(name).build()).getId())));
+    }
+
+    @PostConstruct
+    void load() {
+        departmentRepository.findAll().forEach(d -> departments.load(d.getId(), d.getName()));
+        specializationRepository.findAll().forEach(s -> specializations.load(s.getId(), s.getName()));
+        allergyRepository.findAll().forEach(a -> allergies.load(a.getId(), a.getName()));
+    }
+
+    private static <T> T inDefaultFacility(Supplier<T> work) {
+        return FacilityContext.callAs(FacilityContext.DEFAULT_FACILITY, work);
+    }
+
+    public Integer departmentIdOf(String department) {
+        return departments.idOf(department);
+    }
+
+    public Integer specializationIdOf(String specialization) {
+        return specializations.idOf(specialization);
+    }
+
+    public String departmentName(Integer id) {
+        return departments.nameOf(id);
+    }
+
+    public String specializationName(Integer id) {
+        return specializations.nameOf(id);
+    }
+
+    public String canonicalDepartment(String department) {
+        return departments.canonical(department);
+    }
+
+    public String canonicalSpecialization(String specialization) {
+        return specializations.canonical(specialization);
+    }
+
+    public int internDepartment(String department) {
+        return departments.intern(department);
+    }
+
+    public int internSpecialization(String specialization) {
+        return specializations.intern(specialization);
+    }
+
+    public Integer allergyIdOf(String allergy) {
+        return allergies.idOf(allergy);
+    }
+
+    public int internAllergy(String allergy) {
+        return allergies.intern(allergy);
+    }
+
+    public String allergyName(Integer id) {
+        return allergies.nameOf(id);
+    }
+
+    /**
+     * Trims, drops blanks and case-insensitive duplicates, and maps each allergy to its canonical spelling,
+     * adding unseen ones to the vocabulary.
+     */
+    public List<String> normalizeAllergies(List<String> raw) {
+        if (raw == null) {
+            return new ArrayList<>();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String allergy : raw) {
+            if (allergy != null && !allergy.isBlank()) {
+                normalized.add(allergies.nameOf(allergies.intern(allergy)));
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    public List<String> getAllergies() {
+        return allergies.names();
+    }
+
+    public List<String> getDepartments() {
+        return departments.names();
+    }
+
+    public List<String> getSpecializations() {
+        return specializations.names();
+    }
+}
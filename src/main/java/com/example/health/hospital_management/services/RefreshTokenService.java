@@ -0,0 +1,185 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.entities.RefreshToken;
+import com.example.health.hospital_management.repositories.RefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rotating refresh tokens held in memory and written behind to eva_refresh_tokens; revocations are written
+ * straight away so a restart cannot bring a consumed or logged-out token back.
+ * Each refresh consumes the presented token and issues a new one in the same family, sliding the idle
+ * expiry forward up to the absolute session limit. Presenting an already consumed token revokes the
+ * whole family, since it means the token was copied.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration idleTimeout;
+    private final Duration sessionTimeout;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh.idle-timeout-ms:604800000}") long idleTimeoutMillis,
+                               @Value("${jwt.refresh.session-timeout-ms:2592000000}") long sessionTimeoutMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMillis);
+        this.sessionTimeout = Duration.ofMillis(sessionTimeoutMillis);
+    }
+
+    public record Rotation(String email, String refreshToken) {
+    }
+
+    @PostConstruct
+    void load() {
+        refreshTokenRepository.findAllByExpiresAtAfter(Instant.now())
+                .forEach(token -> tokens.put(token.getTokenHash(), token));
+    }
+
+    public String issue(String email) {
+        Instant now = Instant.now();
+        return store(email, randomToken(16), now.plus(sessionTimeout), now);
+    }
+
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = rawToken == null ? null : tokens.get(hash(rawToken));
+        Instant now = Instant.now();
+        if (current == null || current.getExpiresAt().isBefore(now)) {
+            throw new BadCredentialsException("Refresh token is invalid or expired");
+        }
+        synchronized (current) {
+            if (current.isRevoked()) {
+                log.warn("Refresh token reuse detected for {}, revoking session", current.getEmail());
+                revokeFamily(current.getFamilyId());
+                throw new BadCredentialsException("Refresh token has already been used");
+            }
+            current.setRevoked(true);
+        }
+        writeNow(List.of(current));
+        String next = store(current.getEmail(), current.getFamilyId(), current.getSessionExpiresAt(), now);
+        return new Rotation(current.getEmail(), next);
+    }
+
+    public void revoke(String rawToken) {
+        RefreshToken current = rawToken == null ? null : tokens.get(hash(rawToken));
+        if (current != null) {
+            revokeFamily(current.getFamilyId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.persist-interval-ms:30000}")
+    @PreDestroy
+    public void persist() {
+        Instant now = Instant.now();
+        List<RefreshToken> pending = new ArrayList<>();
+        for (String tokenHash : dirty) {
+            dirty.remove(tokenHash);
+            RefreshToken token = tokens.get(tokenHash);
+            if (token != null) {
+                pending.add(token);
+            }
+        }
+        writeNow(pending);
+        tokens.values().removeIf(token -> token.getExpiresAt().isBefore(now));
+        refreshTokenRepository.deleteExpired(now);
+    }
+
+    private String store(String email, String familyId, Instant sessionExpiresAt, Instant now) {
+        Instant idleExpiry = now.plus(idleTimeout);
+        if (!idleExpiry.isBefore(sessionExpiresAt)) {
+            if (!now.isBefore(sessionExpiresAt)) {
+                throw new BadCredentialsException("Session has expired, please sign in again");
+            }
+            idleExpiry = sessionExpiresAt;
+        }
+        String rawToken = randomToken(32);
+        RefreshToken token = RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .email(email)
+                .familyId(familyId)
+                .expiresAt(idleExpiry)
+                .sessionExpiresAt(sessionExpiresAt)
+                .revoked(false)
+                .build();
+        tokens.put(token.getTokenHash(), token);
+        dirty.add(token.getTokenHash());
+        return rawToken;
+    }
+
+    private void revokeFamily(String familyId) {
+        List<RefreshToken> revoked = new ArrayList<>();
+        for (RefreshToken token : tokens.values()) {
+            if (token.getFamilyId().equals(familyId)) {
+                synchronized (token) {
+                    token.setRevoked(true);
+                }
+                revoked.add(token);
+            }
+        }
+        writeNow(revoked);
+    }
+
+    // Saves copies of the tokens; on failure they are marked dirty again so the next persist() retries them
+    private void writeNow(List<RefreshToken> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<RefreshToken> snapshots = new ArrayList<>(changed.size());
+        for (RefreshToken token : changed) {
+            synchronized (token) {
+                snapshots.add(RefreshToken.builder()
+                        .tokenHash(token.getTokenHash())
+                        .email(token.getEmail())
+                        .familyId(token.getFamilyId())
+                        .expiresAt(token.getExpiresAt())
+                        .sessionExpiresAt(token.getSessionExpiresAt())
+                        .revoked(token.isRevoked())
+                        .build());
+            }
+        }
+        try {
+            refreshTokenRepository.saveAll(snapshots);
+        } catch (RuntimeException e) {
+            changed.forEach(token -> dirty.add(token.getTokenHash()));
+            log.warn("Writing {} refresh tokens failed, will retry", changed.size(), e);
+        }
+    }
+
+    private String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random.nextBytes(buffer);
+        return ENCODER.encodeToString(buffer);
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.dtos.AppointmentReminder;
+
+// Where fired reminders go; swap the logging stub for an SMS or email gateway
+public interface ReminderSink {
+    void send(AppointmentReminder reminder);
+}
@@ -0,0 +1,99 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.entities.CollectionVersion;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.CollectionVersionRepository;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Produces strong ETags from entity @Version columns and per-collection versions.
+ * DTOs embed related entities (appointments carry their patient and doctor, doctors carry their
+ * patients), so each tag also folds in the versions of every collection that shows up in the body.
+ * Collection versions live in eva_collection_versions, one row per facility and collection. The *Changed
+ * methods must be called inside the write's transaction, so the bump commits or rolls back with the write
+ * and every instance serving the facility sees it.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceVersionService {
+    private static final String PATIENTS = "patients";
+    private static final String DOCTORS = "doctors";
+    private static final String APPOINTMENTS = "appointments";
+
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final CollectionVersionRepository collectionVersionRepository;
+
+    public void patientsChanged() {
+        collectionVersionRepository.bump(FacilityContext.current(), PATIENTS);
+    }
+
+    public void doctorsChanged() {
+        collectionVersionRepository.bump(FacilityContext.current(), DOCTORS);
+    }
+
+    public void appointmentsChanged() {
+        collectionVersionRepository.bump(FacilityContext.current(), APPOINTMENTS);
+    }
+
+    public String patientsETag() {
+        Map<String, Long> versions = collectionVersions();
+        return tag(PATIENTS, versions.get(PATIENTS));
+    }
+
+    public String doctorsETag() {
+        Map<String, Long> versions = collectionVersions();
+        return tag(DOCTORS, versions.get(DOCTORS), versions.get(PATIENTS));
+    }
+
+    public String appointmentsETag() {
+        Map<String, Long> versions = collectionVersions();
+        return tag(APPOINTMENTS, versions.get(APPOINTMENTS), versions.get(DOCTORS), versions.get(PATIENTS));
+    }
+
+    public String patientETag(long id) {
+        return patientRepository.findVersionById(id)
+                .map(version -> tag("patient-" + id, version))
+                .orElse(null);
+    }
+
+    public String doctorETag(long id) {
+        return doctorRepository.findVersionById(id)
+                .map(version -> tag("doctor-" + id, version, collectionVersions().get(PATIENTS)))
+                .orElse(null);
+    }
+
+    public String appointmentETag(long id) {
+        return appointmentRepository.findVersionById(id)
+                .map(version -> {
+                    Map<String, Long> versions = collectionVersions();
+                    return tag("appointment-" + id, version, versions.get(DOCTORS), versions.get(PATIENTS));
+                })
+                .orElse(null);
+    }
+
+    // A collection that has never been written has no row yet and counts as version 0
+    private Map<String, Long> collectionVersions() {
+        Map<String, Long> versions = new HashMap<>(Map.of(PATIENTS, 0L, DOCTORS, 0L, APPOINTMENTS, 0L));
+        for (CollectionVersion version : collectionVersionRepository.findAllByFacility(FacilityContext.current())) {
+            versions.put(version.getCollection(), version.getVersion());
+        }
+        return versions;
+    }
+
+    private String tag(String resource, long... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(FacilityContext.current()).append('-').append(resource);
+        for (long version : versions) {
+            tag.append('.').append(version);
+        }
+        return tag.append('"').toString();
+    }
+}
@@ -1,49 +1,80 @@
 package com.example.health.hospital_management.services;
 
 import com.example.health.hospital_management.dtos.AuthRequest;
+import com.example.health.hospital_management.dtos.AuthTokens;
 import com.example.health.hospital_management.dtos.UserInformation;
 import com.example.health.hospital_management.entities.UserCredential;
 import com.example.health.hospital_management.entities.enums.HospitalRole;
 import com.example.health.hospital_management.repositories.UserCredentialRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class UserCredentialService {
     private final UserCredentialRepository userCredentialRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+
+    // Verified against when the email is unknown so both paths cost one hash
+    private volatile String dummyHash;
 
     public UserInformation createUserCredentials(AuthRequest authRequest) {
         UserCredential userCredential = UserCredential.builder()
                 .email(authRequest.email().toLowerCase())
-                .password(passwordEncoder.encode(authRequest.password()))
+                .password(passwordHashingService.encode(authRequest.password()))
                 .role(HospitalRole.PATIENT)
                 .build();
         userCredential = userCredentialRepository.save(userCredential);
         return new UserInformation(userCredential.getEmail());
     }
 
-    public String login(AuthRequest request) {
-        // 1. Authenticate credentials
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.email(),
-                        request.password()
-                )
-        );
-
-        // 2. Load full user entity (so we can include authorities in token)
+    public AuthTokens login(AuthRequest request) {
+        // 1. Single credential read; the same entity is used for verification and the token
         UserCredential user = userCredentialRepository
                 .findByEmail(request.email().toLowerCase())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElse(null);
+
+        // 2. Verify on the bounded hashing pool
+        if (user == null) {
+            passwordHashingService.matches(request.password(), dummyHash());
+            throw new BadCredentialsException("Bad credentials");
+        }
+        if (!passwordHashingService.matches(request.password(), user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        // 3. Re-hash with the configured algorithm/cost while we still have the raw password
+        if (passwordHashingService.needsUpgrade(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(request.password()));
+            user = userCredentialRepository.save(user);
+        }
+
+        // 4. Short-lived access token plus a rotating refresh token
+        return new AuthTokens(jwtService.generateToken(user), refreshTokenService.issue(user.getEmail()));
+    }
+
+    public AuthTokens refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        // Reload so a deleted account or changed role takes effect at the next refresh
+        UserCredential user = userCredentialRepository.findByEmail(rotation.email())
+                .orElseThrow(() -> {
+                    refreshTokenService.revoke(rotation.refreshToken());
+                    return new BadCredentialsException("Bad credentials");
+                });
+        return new AuthTokens(jwtService.generateToken(user), rotation.refreshToken());
+    }
+
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
 
-        // 3. Generate JWT token with full user details
-        return jwtService.generateToken(user.getEmail());
+    private String dummyHash() {
+        if (dummyHash == null) {
+            dummyHash = passwordHashingService.encode("not-a-real-password");
+        }
+        return dummyHash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+package com.example.health.hospital_management.services;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.dtos.JoinWaitlistRequest;
+import com.example.health.hospital_management.dtos.WaitlistInformation;
+import com.example.health.hospital_management.entities.WaitlistEntry;
+import com.example.health.hospital_management.exceptions.DoctorNotFoundException;
+import com.example.health.hospital_management.exceptions.PatientNotFoundException;
+import com.example.health.hospital_management.exceptions.SchedulingConflictException;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.repositories.WaitlistRepository;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import com.example.health.hospital_management.utils.waitlist.WaitlistBoard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Patients waiting for an earlier slot, either with a particular doctor or anywhere in a department.
+ * Entries are persisted in eva_waitlist and ranked in memory by {@link WaitlistBoard}. When an appointment
+ * is cancelled the best-ranked patient who fits is claimed straight off the board, so a cancellation costs
+ * a look at the front of two queues however long the waitlist is. Patient and doctor ids are only unique
+ * within a facility, so each facility has a board of its own.
+ */
+@Service
+@Slf4j
+public class WaitlistService {
+    private final WaitlistRepository waitlistRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final ReferenceDataService referenceDataService;
+    private final FacilityProperties facilityProperties;
+    private final Map<String, WaitlistBoard> boards = new ConcurrentHashMap<>();
+    private final int maxProbes;
+    private final Timer matchLatency;
+    private final Counter unmatched;
+    private final Counter released;
+    private final Counter dropped;
+
+    // A patient taken off the board for a slot; startedAt is when the cancellation was picked up
+    public record Claim(WaitlistBoard.Candidate candidate, long startedAt) {
+    }
+
+    public WaitlistService(WaitlistRepository waitlistRepository,
+                           PatientRepository patientRepository,
+                           DoctorRepository doctorRepository,
+                           ReferenceDataService referenceDataService,
+                           FacilityProperties facilityProperties,
+                           MeterRegistry meterRegistry,
+                           @Value("${waitlist.max-probes:64}") int maxProbes) {
+        this.waitlistRepository = waitlistRepository;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.referenceDataService = referenceDataService;
+        this.facilityProperties = facilityProperties;
+        this.maxProbes = maxProbes;
+        this.matchLatency = Timer.builder("waitlist.match.latency")
+                .description("From picking up a cancelled slot to the waiting patient being booked into it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.unmatched = Counter.builder("waitlist.slots.unmatched").register(meterRegistry);
+        this.released = Counter.builder("waitlist.claims.released").register(meterRegistry);
+        this.dropped = Counter.builder("waitlist.claims.dropped").register(meterRegistry);
+        Gauge.builder("waitlist.size", boards, all -> all.values().stream().mapToInt(WaitlistBoard::size).sum())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        for (String facility : facilityProperties.names()) {
+            FacilityContext.callAs(facility, () -> {
+                var waiting = waitlistRepository.findAllByStatus(WaitlistEntry.State.WAITING);
+                WaitlistBoard board = board();
+                waiting.forEach(entry -> board.add(candidateOf(entry)));
+                log.info("Waitlist of facility {} loaded with {} waiting patients", facility, waiting.size());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Puts the patient on the waitlist, replacing whatever they were waiting for before.
+     */
+    public WaitlistInformation join(JoinWaitlistRequest request) {
+        if (!patientRepository.existsById(request.patientId())) {
+            throw new PatientNotFoundException("Patient with id of " + request.patientId() + " not found");
+        }
+        String department = null;
+        if (request.doctorId() != null) {
+            if (!doctorRepository.existsById(request.doctorId())) {
+                throw new DoctorNotFoundException("Doctor with the id " + request.doctorId() + " not found");
+            }
+        } else {
+            department = referenceDataService.canonicalDepartment(request.department());
+            if (department == null) {
+                throw new IllegalArgumentException("A known department or a doctor id is required");
+            }
+        }
+        withdrawIfWaiting(request.patientId());
+        WaitlistEntry entry = waitlistRepository.save(WaitlistEntry.builder()
+                .patientId(request.patientId())
+                .doctorId(request.doctorId())
+                .department(department)
+                .priority(request.priority())
+                .wantedBefore(request.wantedBefore())
+                .requestedAt(Instant.now())
+                .status(WaitlistEntry.State.WAITING)
+                .build());
+        if (!board().add(candidateOf(entry))) {
+            // A concurrent join for the same patient reached the board first; close this entry instead of orphaning it
+            entry.setStatus(WaitlistEntry.State.WITHDRAWN);
+            entry.setClosedAt(Instant.now());
+            waitlistRepository.save(entry);
+            throw new SchedulingConflictException("Patient with id of " + request.patientId() + " is already joining the waitlist");
+        }
+        return toDto(entry);
+    }
+
+    public WaitlistInformation withdraw(long patientId) {
+        return withdrawIfWaiting(patientId)
+                .orElseThrow(() -> new PatientNotFoundException("Patient with id of " + patientId + " is not on the waitlist"));
+    }
+
+    public WaitlistInformation getEntry(long patientId) {
+        WaitlistBoard.Candidate candidate = board().get(patientId);
+        return Optional.ofNullable(candidate)
+                .flatMap(waiting -> waitlistRepository.findById(waiting.entryId()))
+                .map(this::toDto)
+                .orElseThrow(() -> new PatientNotFoundException("Patient with id of " + patientId + " is not on the waitlist"));
+    }
+
+    /**
+     * Claims the best-ranked patient for a freed slot. Slots that have already started are not offered.
+     * The caller books the appointment and then reports back through {@link #matched} or {@link #release}.
+     */
+    public Optional<Claim> claim(long doctorId, String department, LocalDate date, LocalTime time) {
+        if (date == null || time == null || !LocalDateTime.of(date, time).isAfter(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        long startedAt = System.nanoTime();
+        WaitlistBoard.Candidate candidate = board().claim(doctorId, department, date);
+        if (candidate == null) {
+            unmatched.increment();
+            return Optional.empty();
+        }
+        return Optional.of(new Claim(candidate, startedAt));
+    }
+
+    public void matched(Claim claim, long appointmentId) {
+        waitlistRepository.findById(claim.candidate().entryId()).ifPresent(entry -> {
+            entry.setStatus(WaitlistEntry.State.MATCHED);
+            entry.setMatchedAppointmentId(appointmentId);
+            entry.setClosedAt(Instant.now());
+            waitlistRepository.save(entry);
+        });
+        matchLatency.record(System.nanoTime() - claim.startedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    // Booking the claimed slot failed; the patient goes back in at their original place in line
+    public void release(Claim claim, RuntimeException cause) {
+        released.increment();
+        log.warn("Booking waitlisted patient {} failed, returning them to the waitlist",
+                claim.candidate().patientId(), cause);
+        if (!board().add(claim.candidate())) {
+            // They joined again while claimed, so the new entry takes the place of this one
+            close(claim.candidate().entryId());
+        }
+    }
+
+    // The claimed patient can never be booked, e.g. they were deleted; the caller offers the slot to the next one
+    public void drop(Claim claim, RuntimeException cause) {
+        dropped.increment();
+        log.warn("Waitlisted patient {} cannot be booked, removing them from the waitlist",
+                claim.candidate().patientId(), cause);
+        close(claim.candidate().entryId());
+    }
+
+    public void patientDeleted(long patientId) {
+        withdrawIfWaiting(patientId);
+    }
+
+    // Department waiters are unaffected; those waiting for this doctor in particular are withdrawn
+    public void doctorDeleted(long doctorId) {
+        board().withdrawDoctor(doctorId).forEach(candidate -> close(candidate.entryId()));
+    }
+
+    private Optional<WaitlistInformation> withdrawIfWaiting(long patientId) {
+        return Optional.ofNullable(board().withdraw(patientId))
+                .flatMap(candidate -> close(candidate.entryId()))
+                .map(this::toDto);
+    }
+
+    private Optional<WaitlistEntry> close(long entryId) {
+        return waitlistRepository.findById(entryId).map(entry -> {
+            entry.setStatus(WaitlistEntry.State.WITHDRAWN);
+            entry.setClosedAt(Instant.now());
+            return waitlistRepository.save(entry);
+        });
+    }
+
+    private WaitlistBoard board() {
+        return boards.computeIfAbsent(FacilityContext.current(), facility -> new WaitlistBoard(maxProbes));
+    }
+
+    private static WaitlistBoard.Candidate candidateOf(WaitlistEntry entry) {
+        return new WaitlistBoard.Candidate(entry.getId(), entry.getPatientId(), entry.getDoctorId(),
+                entry.getDepartment(), entry.getPriority(), entry.getWantedBefore(),
+                entry.getRequestedAt().toEpochMilli());
+    }
+
+    private WaitlistInformation toDto(WaitlistEntry entry) {
+        return new WaitlistInformation(
+                entry.getId(),
+                entry.getPatientId(),
+                entry.getDoctorId(),
+                entry.getDepartment(),
+                entry.getPriority(),
+                entry.getWantedBefore(),
+                entry.getRequestedAt(),
+                entry.getStatus().name(),
+                entry.getMatchedAppointmentId());
+    }
+}
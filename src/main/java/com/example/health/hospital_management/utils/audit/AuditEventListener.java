@@ -0,0 +1,155 @@
+package com.example.health.hospital_management.utils.audit;
+
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.AuditLogEntry;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.services.AuditLogService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns committed inserts, updates and deletes of patients, doctors and appointments into one audit entry per
+ * changed field. Runs after commit, so rolled-back changes are never logged, and only builds the entries;
+ * writing them is left to {@link AuditLogService}.
+ */
+@Component
+public class AuditEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    private static final Set<Class<?>> AUDITED = Set.of(Patient.class, Doctor.class, Appointment.class);
+    // Bookkeeping columns and the inverse sides of relationships, which are audited from the owning entity
+    private static final Set<String> IGNORED = Set.of("version", "createdAt", "updatedAt", "appointments", "primaryPatients");
+    private static final int MAX_VALUE_LENGTH = 1000;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AuditLogService auditLogService;
+
+    public AuditEventListener(EntityManagerFactory entityManagerFactory, AuditLogService auditLogService) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditLogService = auditLogService;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return AUDITED.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            auditLogService.record(diff(AuditLogEntry.Action.INSERT, event.getPersister(), event.getId(),
+                    null, event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            auditLogService.record(diff(AuditLogEntry.Action.UPDATE, event.getPersister(), event.getId(),
+                    event.getOldState(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            auditLogService.record(List.of(entry(AuditLogEntry.Action.DELETE, event.getPersister(), event.getId(),
+                    null, null, null)));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private List<AuditLogEntry> diff(AuditLogEntry.Action action, EntityPersister persister, Object id,
+                                     Object[] oldState, Object[] newState) {
+        String[] names = persister.getPropertyNames();
+        List<AuditLogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (IGNORED.contains(names[i])) {
+                continue;
+            }
+            Object oldValue = oldState == null ? null : oldState[i];
+            Object newValue = newState[i];
+            // An element collection modified in place shows up as the same instance on both sides,
+            // and one never loaded tells us nothing about its old contents
+            if (oldValue == newValue && oldValue instanceof Collection<?>
+                    || !Hibernate.isInitialized(oldValue) || !Hibernate.isInitialized(newValue)) {
+                continue;
+            }
+            String before = describe(oldValue);
+            String after = describe(newValue);
+            if (!Objects.equals(before, after)) {
+                entries.add(entry(action, persister, id, names[i], before, after));
+            }
+        }
+        return entries;
+    }
+
+    private static AuditLogEntry entry(AuditLogEntry.Action action, EntityPersister persister, Object id,
+                                       String field, String oldValue, String newValue) {
+        return AuditLogEntry.builder()
+                .facility(FacilityContext.current())
+                .entityType(persister.getMappedClass().getSimpleName())
+                .entityId(((Number) id).longValue())
+                .action(action)
+                .fieldName(field)
+                .oldValue(oldValue)
+                .newValue(newValue)
+                .changedBy(AuditLogService.currentActor())
+                .changedAt(Instant.now())
+                .build();
+    }
+
+    private static String describe(Object value) {
+        String text = switch (value) {
+            case null -> null;
+            case Patient patient -> String.valueOf(patient.getId());
+            case Doctor doctor -> String.valueOf(doctor.getId());
+            case Appointment appointment -> String.valueOf(appointment.getId());
+            case Collection<?> collection -> collection.stream().map(String::valueOf).collect(Collectors.joining(";"));
+            default -> value.toString();
+        };
+        return text == null || text.length() <= MAX_VALUE_LENGTH ? text : text.substring(0, MAX_VALUE_LENGTH);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.health.hospital_management.utils.cache;
+
+import com.example.health.hospital_management.dtos.PatientInformation;
+import com.example.health.hospital_management.utils.offheap.OffHeapProfileStore;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Patient profiles kept off-heap, one {@link OffHeapProfileStore} per facility. Like the serialized response
+ * cache it is local to the instance, so only writes made through this instance update it.
+ */
+@Component
+public class PatientProfileCache {
+    private final Map<String, OffHeapProfileStore> stores = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final int initialBytes;
+    private final int maxBytes;
+
+    public PatientProfileCache(MeterRegistry meterRegistry,
+                               @Value("${patient-profiles.initial-bytes:1048576}") int initialBytes,
+                               @Value("${patient-profiles.max-bytes:268435456}") int maxBytes) {
+        this.initialBytes = initialBytes;
+        this.maxBytes = maxBytes;
+        FunctionCounter.builder("patient.profiles.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("patient.profiles.misses", misses, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("patient.profiles.count", this, PatientProfileCache::count).register(meterRegistry);
+        Gauge.builder("patient.profiles.bytes", this, PatientProfileCache::capacityBytes)
+                .description("Direct memory held by the profile stores")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public PatientInformation get(long id) {
+        PatientInformation patient = store().get(id);
+        (patient == null ? misses : hits).incrementAndGet();
+        return patient;
+    }
+
+    // Taken before loading a profile from the database, for putIfUnchanged
+    public long generation() {
+        return store().generation();
+    }
+
+    public void putIfUnchanged(PatientInformation patient, long generation) {
+        store().putIfUnchanged(patient, generation);
+    }
+
+    public void put(PatientInformation patient) {
+        OffHeapProfileStore store = store();
+        if (!store.put(patient)) {
+            // Did not fit; an older copy must not be served in its place
+            store.remove(patient.id());
+        }
+    }
+
+    public void remove(long id) {
+        store().remove(id);
+    }
+
+    public long count() {
+        return stores.values().stream().mapToLong(OffHeapProfileStore::size).sum();
+    }
+
+    public long capacityBytes() {
+        return stores.values().stream().mapToLong(OffHeapProfileStore::capacityBytes).sum();
+    }
+
+    private OffHeapProfileStore store() {
+        String facility = FacilityContext.current();
+        OffHeapProfileStore store = stores.get(facility);
+        return store != null ? store : stores.computeIfAbsent(facility, f -> new OffHeapProfileStore(initialBytes, maxBytes));
+    }
+}
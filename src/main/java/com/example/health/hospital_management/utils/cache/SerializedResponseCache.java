@@ -0,0 +1,180 @@
+package com.example.health.hospital_management.utils.cache;
+
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of response bodies already encoded as UTF-8 JSON, bounded by the total number of bytes held.
+ * Controllers hand the bytes straight to the response, skipping both mapping and Jackson on a hit.
+ */
+@Component
+public class SerializedResponseCache {
+    public static final String DOCTOR_DIRECTORY = "doctors";
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long generation;
+    private long currentBytes;
+
+    public SerializedResponseCache(ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${response-cache.max-bytes:16777216}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        FunctionCounter.builder("response.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("response.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("response.cache.hit.ratio", this, SerializedResponseCache::hitRatio).register(meterRegistry);
+        Gauge.builder("response.cache.bytes", this, SerializedResponseCache::size).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public static String patientKey(long id) {
+        return "patient:" + id;
+    }
+
+    public byte[] getOrSerialize(String key, Supplier<?> loader) {
+        key = scoped(key);
+        long startGeneration;
+        synchronized (entries) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        store(key, body, startGeneration);
+        return body;
+    }
+
+    public byte[] getIfPresent(String key) {
+        key = scoped(key);
+        synchronized (entries) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Wraps a response stream so the bytes written through it are also kept. Calling {@link Capture#commit()}
+     * after the body is complete stores them under the key, as long as they fit the per-entry limit.
+     */
+    public Capture capture(String key, OutputStream target) {
+        misses.incrementAndGet();
+        synchronized (entries) {
+            return new Capture(scoped(key), target, generation);
+        }
+    }
+
+    public class Capture extends FilterOutputStream {
+        private final String key;
+        private final long startGeneration;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private Capture(String key, OutputStream target, long startGeneration) {
+            super(target);
+            this.key = key;
+            this.startGeneration = startGeneration;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            keep(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            keep(len).write(b, off, len);
+        }
+
+        public void commit() {
+            if (copy != null) {
+                store(key, copy.toByteArray(), startGeneration);
+            }
+        }
+
+        private OutputStream keep(int len) {
+            if (copy != null && copy.size() + len > maxBytes / 4) {
+                copy = null;
+            }
+            return copy == null ? OutputStream.nullOutputStream() : copy;
+        }
+    }
+
+    public void invalidate(String key) {
+        synchronized (entries) {
+            generation++;
+            byte[] removed = entries.remove(scoped(key));
+            if (removed != null) {
+                currentBytes -= removed.length;
+            }
+        }
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long size() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    // Each facility has its own doctors and patients behind the same keys
+    private static String scoped(String key) {
+        return FacilityContext.current() + "/" + key;
+    }
+
+    private void store(String key, byte[] body, long startGeneration) {
+        synchronized (entries) {
+            // Skip the put if anything was invalidated while loading; the body may predate that write
+            if (generation == startGeneration && body.length <= maxBytes / 4) {
+                byte[] previous = entries.put(key, body);
+                currentBytes += body.length - (previous == null ? 0 : previous.length);
+                evict();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.health.hospital_management.utils.concurrency;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free multi-producer queue with a hard capacity. Producers reserve a slot with one CAS on the size
+ * counter before enqueueing, so {@link #offer} never blocks and simply refuses once the buffer is full.
+ */
+public class BoundedBuffer<T> {
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    public BoundedBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean offer(T item) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        queue.offer(item);
+        return true;
+    }
+
+    // Moves up to max items into the target list and returns how many were moved
+    public int drainTo(List<? super T> target, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = queue.poll()) != null) {
+            target.add(item);
+            drained++;
+        }
+        size.addAndGet(-drained);
+        return drained;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.health.hospital_management.utils.concurrency;
+
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical reads: while one caller is loading a key, concurrent callers for the
+ * same key wait for that result instead of running their own query. Nothing is kept once the load
+ * finishes, so a result is at most one query's duration old. Results are shared between callers and
+ * must be immutable.
+ */
+@Component
+public class RequestCoalescer {
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Facilities never share a load, even for the same arguments
+    private record Key(String facility, String operation, List<Object> arguments) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String operation, Supplier<T> loader, Object... arguments) {
+        Key key = new Key(FacilityContext.current(), operation, List.of(arguments));
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        // Tagged by operation only; tagging by full key would create a meter per id
+        if (existing != null) {
+            counter(operation, "follower").increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException | CancellationException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        counter(operation, "leader").increment();
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Counter counter(String operation, String role) {
+        return Counter.builder("service.reads.coalesced")
+                .tag("operation", operation)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.health.hospital_management.utils.converters;
+
+import com.example.health.hospital_management.services.ReferenceDataService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+@Component
+@Converter
+public class DepartmentConverter implements AttributeConverter<String, Integer> {
+    private final ReferenceDataService referenceDataService;
+
+    // Lazy because Hibernate builds converters while the repositories behind the dictionary are still starting up
+    public DepartmentConverter(@Lazy ReferenceDataService referenceDataService) {
+        this.referenceDataService = referenceDataService;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String department) {
+        if (department == null || department.isBlank()) {
+            return null;
+        }
+        return referenceDataService.internDepartment(department);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return referenceDataService.departmentName(id);
+    }
+}
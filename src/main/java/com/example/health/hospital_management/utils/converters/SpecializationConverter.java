@@ -0,0 +1,30 @@
+package com.example.health.hospital_management.utils.converters;
+
+import com.example.health.hospital_management.services.ReferenceDataService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+@Component
+@Converter
+public class SpecializationConverter implements AttributeConverter<String, Integer> {
+    private final ReferenceDataService referenceDataService;
+
+    public SpecializationConverter(@Lazy ReferenceDataService referenceDataService) {
+        this.referenceDataService = referenceDataService;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String specialization) {
+        if (specialization == null || specialization.isBlank()) {
+            return null;
+        }
+        return referenceDataService.internSpecialization(specialization);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return referenceDataService.specializationName(id);
+    }
+}
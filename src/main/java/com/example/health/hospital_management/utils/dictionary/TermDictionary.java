@@ -0,0 +1,84 @@
+package com.example.health.hospital_management.utils.dictionary;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Maps free-text terms (departments, specializations) to compact integer ids.
+ * Lookups are case-insensitive and always hand back the interned canonical spelling,
+ * so every row referencing the same term shares one String instance.
+ */
+public class TermDictionary {
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final Function<String, Integer> persister;
+    private volatile String[] namesById = new String[16];
+
+    public TermDictionary(Function<String, Integer> persister) {
+        this.persister = persister;
+    }
+
+    public synchronized void load(int id, String name) {
+        register(id, name);
+    }
+
+    public Integer idOf(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return idsByKey.get(key(name));
+    }
+
+    public String nameOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String[] names = namesById;
+        return id >= 0 && id < names.length ? names[id] : null;
+    }
+
+    public String canonical(String name) {
+        return nameOf(idOf(name));
+    }
+
+    public int intern(String name) {
+        Integer id = idOf(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = idOf(name);
+            if (id == null) {
+                String canonical = name.trim().intern();
+                id = Objects.requireNonNull(persister.apply(canonical));
+                register(id, canonical);
+            }
+            return id;
+        }
+    }
+
+    public List<String> names() {
+        return Arrays.stream(namesById).filter(Objects::nonNull).sorted().toList();
+    }
+
+    private void register(int id, String name) {
+        String canonical = name.trim().intern();
+        String[] names = namesById;
+        if (id >= names.length) {
+            names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+        } else {
+            names = names.clone();
+        }
+        names[id] = canonical;
+        namesById = names;
+        idsByKey.put(key(canonical), id);
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.health.hospital_management.utils.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes flat rows as CSV (RFC 4180, header line first) or as one JSON object per line.
+ * Output is buffered; call {@link #flush()} now and then so rows reach the client while the cursor is still open.
+ */
+public abstract class RowWriter implements Closeable {
+    protected final List<String> columns;
+
+    protected RowWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public static RowWriter of(ExportFormat format, OutputStream out, List<String> columns, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out, columns);
+            case NDJSON -> new Ndjson(out, columns, objectMapper);
+        };
+    }
+
+    public abstract void row(Object... values) throws IOException;
+
+    public abstract void flush() throws IOException;
+
+    private static final class Csv extends RowWriter {
+        private final BufferedWriter writer;
+
+        private Csv(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            row(columns.toArray());
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static final class Ndjson extends RowWriter {
+        private final JsonGenerator generator;
+
+        private Ndjson(OutputStream out, List<String> columns, ObjectMapper objectMapper) throws IOException {
+            super(columns);
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            // Rows are separated by the newline written after each one, not Jackson's default space
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void row(Object... values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                generator.writeObject(values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.health.hospital_management.utils.index;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from dictionary term ids to the set of document ids carrying that term, each set held
+ * as a compressed Roaring bitmap. Queries intersect, union and subtract whole bitmaps instead of scanning
+ * documents. Writers are rare next to readers, so a read/write lock guards the map.
+ */
+public class BitmapIndex {
+    private final Map<Integer, Roaring64Bitmap> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(long documentId, int termId) {
+        lock.writeLock().lock();
+        try {
+            postings.computeIfAbsent(termId, id -> new Roaring64Bitmap()).addLong(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replace(long documentId, Collection<Integer> termIds) {
+        lock.writeLock().lock();
+        try {
+            // The vocabulary is small, so clearing every posting is cheaper than tracking terms per document
+            postings.values().forEach(bitmap -> bitmap.removeLong(documentId));
+            for (int termId : termIds) {
+                postings.computeIfAbsent(termId, id -> new Roaring64Bitmap()).addLong(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Roaring64Bitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents carrying every term in {@code allOf} and at least one in {@code anyOf}, minus those carrying
+     * any term in {@code noneOf}. An empty {@code allOf} or {@code anyOf} places no restriction, but at least
+     * one of the two must be given. A null term id stands for a term nobody carries.
+     */
+    public Roaring64Bitmap query(Collection<Integer> allOf, Collection<Integer> anyOf, Collection<Integer> noneOf) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap result = null;
+            for (Integer termId : allOf) {
+                Roaring64Bitmap posting = termId == null ? null : postings.get(termId);
+                if (posting == null) {
+                    return new Roaring64Bitmap();
+                }
+                if (result == null) {
+                    result = posting.clone();
+                } else {
+                    result.and(posting);
+                }
+            }
+            if (!anyOf.isEmpty()) {
+                Roaring64Bitmap union = new Roaring64Bitmap();
+                for (Integer termId : anyOf) {
+                    Roaring64Bitmap posting = termId == null ? null : postings.get(termId);
+                    if (posting != null) {
+                        union.or(posting);
+                    }
+                }
+                if (result == null) {
+                    result = union;
+                } else {
+                    result.and(union);
+                }
+            }
+            if (result == null) {
+                return new Roaring64Bitmap();
+            }
+            for (Integer termId : noneOf) {
+                Roaring64Bitmap posting = termId == null ? null : postings.get(termId);
+                if (posting != null) {
+                    result.andNot(posting);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Integer, Long> cardinalities() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Long> counts = new HashMap<>();
+            postings.forEach((termId, bitmap) -> counts.put(termId, bitmap.getLongCardinality()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return postings.values().stream().mapToLong(Roaring64Bitmap::getLongSizeInBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
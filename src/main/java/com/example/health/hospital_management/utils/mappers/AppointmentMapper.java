@@ -1,7 +1,18 @@
 package com.example.health.hospital_management.utils.mappers;
 
+import com.example.health.hospital_management.dtos.DoctorInformation;
+import com.example.health.hospital_management.dtos.NormalizedAppointments;
+import com.example.health.hospital_management.dtos.PatientInformation;
 import com.example.health.hospital_management.entities.Appointment;
 import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.utils.primitive.LongHashSet;
+import com.example.health.hospital_management.utils.primitive.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class AppointmentMapper {
     public static AppointmentInformation toDto(Appointment appointment) {
@@ -14,4 +25,79 @@ public class AppointmentMapper {
                 appointment.getStatus()
         );
     }
+
+    /**
+     * Maps a list of appointments, creating the DTO of each patient and doctor once. A doctor's appointments
+     * all share one DoctorInformation, and with it a single copy of the doctor's patient list. The result may
+     * be handed to several callers at once, so it is unmodifiable.
+     */
+    public static List<AppointmentInformation> toDtos(List<Appointment> appointments) {
+        List<AppointmentInformation> dtos = new ArrayList<>(appointments.size());
+        List<PatientInformation> patients = new ArrayList<>();
+        List<DoctorInformation> doctors = new ArrayList<>();
+        LongIntHashMap patientIndex = new LongIntHashMap(16, -1);
+        LongIntHashMap doctorIndex = new LongIntHashMap(16, -1);
+        for (Appointment appointment : appointments) {
+            Patient patient = appointment.getPatient();
+            Doctor doctor = appointment.getDoctor();
+            PatientInformation patientDto = null;
+            if (patient != null) {
+                int index = patientIndex.get(patient.getId());
+                if (index < 0) {
+                    index = patients.size();
+                    patients.add(PatientMapper.toDto(patient));
+                    patientIndex.put(patient.getId(), index);
+                }
+                patientDto = patients.get(index);
+            }
+            DoctorInformation doctorDto = null;
+            if (doctor != null) {
+                int index = doctorIndex.get(doctor.getId());
+                if (index < 0) {
+                    index = doctors.size();
+                    doctors.add(DoctorMapper.toDto(doctor));
+                    doctorIndex.put(doctor.getId(), index);
+                }
+                doctorDto = doctors.get(index);
+            }
+            dtos.add(new AppointmentInformation(
+                    appointment.getId(),
+                    patientDto,
+                    doctorDto,
+                    appointment.getDate(),
+                    appointment.getTime(),
+                    appointment.getStatus()
+            ));
+        }
+        return Collections.unmodifiableList(dtos);
+    }
+
+    public static NormalizedAppointments toNormalized(List<Appointment> appointments) {
+        List<NormalizedAppointments.AppointmentRow> rows = new ArrayList<>(appointments.size());
+        List<PatientInformation> patients = new ArrayList<>();
+        List<DoctorInformation> doctors = new ArrayList<>();
+        LongHashSet patientIds = new LongHashSet();
+        LongHashSet doctorIds = new LongHashSet();
+        for (Appointment appointment : appointments) {
+            Patient patient = appointment.getPatient();
+            Doctor doctor = appointment.getDoctor();
+            if (patient != null && patientIds.add(patient.getId())) {
+                patients.add(PatientMapper.toDto(patient));
+            }
+            if (doctor != null && doctorIds.add(doctor.getId())) {
+                // Referenced doctors are sent without their patient lists; those are what make the nested form large
+                doctors.add(DoctorMapper.toSummaryDto(doctor));
+            }
+            rows.add(new NormalizedAppointments.AppointmentRow(
+                    appointment.getId(),
+                    patient == null ? 0 : patient.getId(),
+                    doctor == null ? 0 : doctor.getId(),
+                    appointment.getDate(),
+                    appointment.getTime(),
+                    appointment.getStatus()
+            ));
+        }
+        return new NormalizedAppointments(Collections.unmodifiableList(rows), Collections.unmodifiableList(patients),
+                Collections.unmodifiableList(doctors));
+    }
 }
\ No newline at end of file
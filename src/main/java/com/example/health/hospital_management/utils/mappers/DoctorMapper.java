@@ -1,8 +1,14 @@
 package com.example.health.hospital_management.utils.mappers;
 
+import com.example.health.hospital_management.dtos.PatientInformation;
 import com.example.health.hospital_management.dtos.PostNewDoctorRequest;
 import com.example.health.hospital_management.entities.Doctor;
 import com.example.health.hospital_management.dtos.DoctorInformation;
+import com.example.health.hospital_management.entities.Patient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class DoctorMapper {
 
@@ -11,6 +17,10 @@ public class DoctorMapper {
             return null;
         }
 
+        List<PatientInformation> patients = new ArrayList<>(doctor.getPatients().size());
+        for (Patient patient : doctor.getPatients()) {
+            patients.add(PatientMapper.toDto(patient));
+        }
         return new DoctorInformation(
                 doctor.getId(),
                 doctor.getFirstName(),
@@ -19,10 +29,23 @@ public class DoctorMapper {
                 doctor.getDepartment(),
                 doctor.getPhone(),
                 doctor.getEmail(),
-                doctor.getPatients()
-                        .stream()
-                        .map(PatientMapper::toDto)
-                        .toList()
+                Collections.unmodifiableList(patients)
+        );
+    }
+
+    public static DoctorInformation toSummaryDto(Doctor doctor) {
+        if (doctor == null) {
+            return null;
+        }
+
+        return new DoctorInformation(
+                doctor.getId(),
+                doctor.getFirstName(),
+                doctor.getLastName(),
+                doctor.getSpecialization(),
+                doctor.getDepartment(),
+                doctor.getPhone(),
+                doctor.getEmail()
         );
     }
 
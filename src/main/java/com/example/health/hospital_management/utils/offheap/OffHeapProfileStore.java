@@ -0,0 +1,391 @@
+package com.example.health.hospital_management.utils.offheap;
+
+import com.example.health.hospital_management.dtos.PatientInformation;
+import com.example.health.hospital_management.entities.enums.BiologicalSex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Patient profiles as compact binary records in direct memory, so millions of them add nothing for the
+ * garbage collector to trace. Records are appended to a data area and found through an open-addressing
+ * index (linear probing) that is off-heap as well. An update appends a new copy and a delete leaves a
+ * tombstone; the dead bytes are reclaimed by compacting in place once the data area is full. The store
+ * never grows past maxBytes and rejects records that would not fit.
+ * <p>
+ * A read decodes straight from the buffer through a per-thread scratch array, so a hit allocates only the
+ * returned PatientInformation and its strings. Reads share a StampedLock, whose read lock does not allocate.
+ * <p>
+ * Record layout: int length, long id, int epoch day (MIN_VALUE for none), byte sex ordinal (-1 for none),
+ * first name, last name, phone, address, short allergy count, allergies. Each string is an unsigned short
+ * byte count (0xFFFF for null) followed by UTF-8 bytes.
+ */
+public class OffHeapProfileStore {
+    private static final long EMPTY_KEY = 0;        // patient ids start at 1
+    private static final int DELETED = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int HEADER = Integer.BYTES + Long.BYTES + Integer.BYTES + 1;
+    private static final BiologicalSex[] SEXES = BiologicalSex.values();
+
+    private final int maxBytes;
+    private final StampedLock lock = new StampedLock();
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[256]);
+    private ByteBuffer data;
+    private ByteBuffer keys;
+    private ByteBuffer offsets;
+    private int slots;
+    private int occupiedSlots;
+    private int live;
+    private int end;
+    private int garbage;
+    private long generation;
+
+    public OffHeapProfileStore(int initialBytes, int maxBytes) {
+        this.maxBytes = maxBytes;
+        this.data = ByteBuffer.allocateDirect(Math.min(initialBytes, maxBytes));
+        allocateIndex(1024);
+    }
+
+    /**
+     * Stores the profile, replacing any earlier one. Returns false when it does not fit.
+     */
+    public boolean put(PatientInformation patient) {
+        long stamp = lock.writeLock();
+        try {
+            generation++;
+            return write(patient);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores a profile that was read from the database at {@link #generation()}, unless the store has been
+     * written since; the copy may then predate that write.
+     */
+    public boolean putIfUnchanged(PatientInformation patient, long expectedGeneration) {
+        long stamp = lock.writeLock();
+        try {
+            return generation == expectedGeneration && write(patient);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long generation() {
+        long stamp = lock.readLock();
+        try {
+            return generation;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public PatientInformation get(long id) {
+        long stamp = lock.readLock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = offsets.getInt(slot * Integer.BYTES);
+            return offset == DELETED ? null : decode(offset);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            generation++;
+            int slot = find(id);
+            if (slot < 0) {
+                return false;
+            }
+            int offset = offsets.getInt(slot * Integer.BYTES);
+            if (offset == DELETED) {
+                return false;
+            }
+            offsets.putInt(slot * Integer.BYTES, DELETED);
+            garbage += data.getInt(offset);
+            live--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return live;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Direct memory held by the data area and the index
+    public long capacityBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) data.capacity() + keys.capacity() + offsets.capacity();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long liveBytes() {
+        long stamp = lock.readLock();
+        try {
+            return end - garbage;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean write(PatientInformation patient) {
+        if (patient.id() == EMPTY_KEY) {
+            return false;
+        }
+        byte[] record = encode(patient);
+        if (record == null || !makeRoom(record.length)) {
+            return false;
+        }
+        int offset = end;
+        data.put(offset, record);
+        end += record.length;
+
+        if ((occupiedSlots + 1) * 10L > slots * 7L) {
+            // Rehash past the load limit; only live keys are carried over, which also clears tombstones
+            resizeIndex(live * 10L + 10 > slots * 5L ? slots * 2 : slots);
+        }
+        int slot = slotFor(patient.id());
+        if (keys.getLong(slot * Long.BYTES) == EMPTY_KEY) {
+            keys.putLong(slot * Long.BYTES, patient.id());
+            occupiedSlots++;
+            live++;
+        } else {
+            int previous = offsets.getInt(slot * Integer.BYTES);
+            if (previous == DELETED) {
+                live++;
+            } else {
+                garbage += data.getInt(previous);
+            }
+        }
+        offsets.putInt(slot * Integer.BYTES, offset);
+        return true;
+    }
+
+    private boolean makeRoom(int length) {
+        if (end + length <= data.capacity()) {
+            return true;
+        }
+        int needed = end - garbage + length;
+        if (needed > maxBytes) {
+            return false;
+        }
+        // Compacting rewrites the whole area, so only do it when a good share is dead or the budget is reached
+        if (garbage > 0 && (garbage >= data.capacity() / 4 || end + length > maxBytes)) {
+            compact();
+        }
+        if (end + length > data.capacity()) {
+            grow((int) Math.min(maxBytes, Math.max(2L * data.capacity(), end + length)));
+        }
+        return true;
+    }
+
+    // Slides live records down over dead ones; each record moves to a lower offset, so copying forward is safe
+    private void compact() {
+        byte[] chunk = new byte[8192];
+        int read = 0;
+        int write = 0;
+        while (read < end) {
+            int length = data.getInt(read);
+            long id = data.getLong(read + Integer.BYTES);
+            int slot = find(id);
+            if (slot >= 0 && offsets.getInt(slot * Integer.BYTES) == read) {
+                if (write != read) {
+                    for (int copied = 0; copied < length; copied += chunk.length) {
+                        int n = Math.min(chunk.length, length - copied);
+                        data.get(read + copied, chunk, 0, n);
+                        data.put(write + copied, chunk, 0, n);
+                    }
+                    offsets.putInt(slot * Integer.BYTES, write);
+                }
+                write += length;
+            }
+            read += length;
+        }
+        end = write;
+        garbage = 0;
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        larger.put(0, data, 0, end);
+        data = larger;
+    }
+
+    private int find(long id) {
+        int mask = slots - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            long key = keys.getLong(slot * Long.BYTES);
+            if (key == id) {
+                return slot;
+            }
+            if (key == EMPTY_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    // The slot holding id, or the empty slot where it would go
+    private int slotFor(long id) {
+        int mask = slots - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            long key = keys.getLong(slot * Long.BYTES);
+            if (key == id || key == EMPTY_KEY) {
+                return slot;
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocateIndex(int size) {
+        slots = size;
+        keys = ByteBuffer.allocateDirect(size * Long.BYTES);
+        offsets = ByteBuffer.allocateDirect(size * Integer.BYTES);
+        occupiedSlots = 0;
+    }
+
+    private void resizeIndex(int size) {
+        ByteBuffer oldKeys = keys;
+        ByteBuffer oldOffsets = offsets;
+        int oldSlots = slots;
+        allocateIndex(size);
+        for (int i = 0; i < oldSlots; i++) {
+            long key = oldKeys.getLong(i * Long.BYTES);
+            int offset = oldOffsets.getInt(i * Integer.BYTES);
+            if (key != EMPTY_KEY && offset != DELETED) {
+                int slot = slotFor(key);
+                keys.putLong(slot * Long.BYTES, key);
+                offsets.putInt(slot * Integer.BYTES, offset);
+                occupiedSlots++;
+            }
+        }
+    }
+
+    // Writes are rare next to reads, so encoding may allocate; null when a field is too long for the format
+    private static byte[] encode(PatientInformation patient) {
+        // Decoded allergies come back as List.of, which holds no nulls
+        List<String> allergies = patient.allergies() == null ? List.of()
+                : patient.allergies().stream().filter(Objects::nonNull).toList();
+        byte[][] strings = new byte[4 + allergies.size()][];
+        strings[0] = utf8(patient.firstName());
+        strings[1] = utf8(patient.lastName());
+        strings[2] = utf8(patient.phoneNumber());
+        strings[3] = utf8(patient.address());
+        for (int i = 0; i < allergies.size(); i++) {
+            strings[4 + i] = utf8(allergies.get(i));
+        }
+        if (allergies.size() > Short.MAX_VALUE) {
+            return null;
+        }
+        int length = HEADER + Short.BYTES;
+        for (byte[] string : strings) {
+            if (string != null && string.length >= NULL_STRING) {
+                return null;
+            }
+            length += Short.BYTES + (string == null ? 0 : string.length);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length);
+        record.putLong(patient.id());
+        record.putInt(patient.dateOfBirth() == null ? NO_DATE : (int) patient.dateOfBirth().toEpochDay());
+        record.put(patient.biologicalSex() == null ? -1 : (byte) patient.biologicalSex().ordinal());
+        for (int i = 0; i < 4; i++) {
+            putString(record, strings[i]);
+        }
+        record.putShort((short) allergies.size());
+        for (int i = 4; i < strings.length; i++) {
+            putString(record, strings[i]);
+        }
+        return record.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer record, byte[] string) {
+        if (string == null) {
+            record.putShort((short) NULL_STRING);
+        } else {
+            record.putShort((short) string.length);
+            record.put(string);
+        }
+    }
+
+    private PatientInformation decode(int offset) {
+        int position = offset + Integer.BYTES + Long.BYTES;
+        long id = data.getLong(offset + Integer.BYTES);
+        int epochDay = data.getInt(position);
+        byte sex = data.get(position + Integer.BYTES);
+        position += Integer.BYTES + 1;
+
+        String firstName = readString(position);
+        position = skipString(position);
+        String lastName = readString(position);
+        position = skipString(position);
+        String phoneNumber = readString(position);
+        position = skipString(position);
+        String address = readString(position);
+        position = skipString(position);
+        int allergyCount = data.getShort(position);
+        position += Short.BYTES;
+        String[] allergies = new String[allergyCount];
+        for (int i = 0; i < allergyCount; i++) {
+            allergies[i] = readString(position);
+            position = skipString(position);
+        }
+        return new PatientInformation(
+                id,
+                firstName,
+                lastName,
+                phoneNumber,
+                address,
+                epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                sex < 0 ? null : SEXES[sex],
+                List.of(allergies));
+    }
+
+    private int skipString(int position) {
+        int length = Short.toUnsignedInt(data.getShort(position));
+        return position + Short.BYTES + (length == NULL_STRING ? 0 : length);
+    }
+
+    private String readString(int position) {
+        int length = Short.toUnsignedInt(data.getShort(position));
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] buffer = scratch.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            scratch.set(buffer);
+        }
+        data.get(position + Short.BYTES, buffer, 0, length);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.health.hospital_management.utils.primitive;
+
+/**
+ * Set of longs in a single long[] with open addressing (linear probing), so adding an id allocates neither a
+ * boxed Long nor a node. Elements cannot be removed. Not thread-safe.
+ */
+public class LongHashSet {
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        keys = new long[PrimitiveHashing.tableSize(expectedSize)];
+    }
+
+    /**
+     * Returns true if the value was not in the set yet.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            // 0 marks an empty slot, so it is tracked on its own
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = PrimitiveHashing.hash(value) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size > keys.length * PrimitiveHashing.LOAD_FACTOR) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = keys.length - 1;
+        for (int slot = PrimitiveHashing.hash(value) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        int mask = keys.length - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int slot = PrimitiveHashing.hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
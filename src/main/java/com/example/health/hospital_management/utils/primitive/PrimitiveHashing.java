@@ -0,0 +1,20 @@
+package com.example.health.hospital_management.utils.primitive;
+
+// Shared by the open-addressing collections: ids are often sequential, so they are mixed before masking
+final class PrimitiveHashing {
+    static final float LOAD_FACTOR = 0.6f;
+
+    private PrimitiveHashing() {
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Smallest power of two that holds expectedSize entries below the load factor
+    static int tableSize(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR) + 1;
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.health.hospital_management.utils.routing;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A primary database and its read replica behind one DataSource. Connections are fetched lazily, once the
+ * transaction has been marked read-only or not, and read-only transactions are served by the replica. The
+ * primary serves everything else, and also read-only work while the replica is lagging by more than maxLag
+ * or the current user has written within the read-your-writes window.
+ * Lag is measured by a heartbeat row the primary updates and the replica receives through replication.
+ * A Hibernate Session holds on to the first connection it gets, so routing is only per transaction while
+ * each transaction has a Session of its own; that is why spring.jpa.open-in-view is off.
+ */
+public class ReplicatedDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+    private final Clock clock;
+    private final JdbcTemplate primaryJdbc;
+    private final JdbcTemplate replicaJdbc;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+    private volatile long lagMillis = UNKNOWN_LAG;
+    private volatile boolean heartbeatTableReady;
+
+    public ReplicatedDataSource(DataSource primary, DataSource replica, long maxLagMillis,
+                                long readYourWritesMillis, Clock clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.clock = clock;
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicaJdbc = new JdbcTemplate(replica);
+        setTargetDataSource(new WriteTrackingDataSource(primary));
+        setReadOnlyDataSource(new ReadOnlyRouter());
+    }
+
+    /**
+     * Writes a heartbeat on the primary and reads back what the replica has received. Until the replica has
+     * answered once, and whenever it cannot be reached, its lag is unknown and reads stay on the primary.
+     */
+    public void heartbeat() {
+        long now = clock.millis();
+        try {
+            if (!heartbeatTableReady) {
+                primaryJdbc.execute("CREATE TABLE IF NOT EXISTS eva_replication_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+                heartbeatTableReady = true;
+            }
+            if (primaryJdbc.update("UPDATE eva_replication_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primaryJdbc.update("INSERT INTO eva_replication_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            lagMillis = UNKNOWN_LAG;
+            return;
+        }
+        try {
+            Long seen = replicaJdbc.queryForObject("SELECT beat_at FROM eva_replication_heartbeat WHERE id = 1", Long.class);
+            // Includes up to one heartbeat interval on top of the actual replication delay
+            lagMillis = seen == null ? UNKNOWN_LAG : Math.max(0, now - seen);
+        } catch (DataAccessException e) {
+            lagMillis = UNKNOWN_LAG;
+        }
+    }
+
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    public boolean replicaUsable() {
+        return lagMillis <= maxLagMillis;
+    }
+
+    public long replicaReads() {
+        return replicaReads.get();
+    }
+
+    public long primaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : new DataSource[]{replica, primary}) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private boolean pinnedToPrimary() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteByUser.get(user);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (clock.millis() - lastWrite < readYourWritesMillis) {
+            return true;
+        }
+        lastWriteByUser.remove(user, lastWrite);
+        return false;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    // Only read-write transactions count as writes; plain auto-commit reads outside a transaction do not
+    private class WriteTrackingDataSource extends DelegatingDataSource {
+        WriteTrackingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            recordWrite();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            recordWrite();
+            return super.getConnection(username, password);
+        }
+
+        private void recordWrite() {
+            String user = currentUser();
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                lastWriteByUser.put(user, clock.millis());
+            }
+        }
+    }
+
+    private class ReadOnlyRouter extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (replicaUsable() && !pinnedToPrimary()) {
+                replicaReads.incrementAndGet();
+                return replica.getConnection();
+            }
+            primaryFallbacks.incrementAndGet();
+            Connection connection = primary.getConnection();
+            connection.setReadOnly(true);
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.health.hospital_management.utils.routing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drives the replication heartbeat of every facility that has a read replica and publishes its lag and
+ * how reads were routed.
+ */
+public class ReplicationMonitor {
+    private final Map<String, ReplicatedDataSource> replicated = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ReplicationMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void register(String facility, ReplicatedDataSource dataSource) {
+        replicated.put(facility, dataSource);
+        Gauge.builder("replica.lag", dataSource, ReplicatedDataSource::lagMillis)
+                .description("Replication lag seen by the last heartbeat in ms; Long.MAX_VALUE when unknown")
+                .tag("facility", facility)
+                .register(meterRegistry);
+        FunctionCounter.builder("replica.reads", dataSource, ReplicatedDataSource::replicaReads)
+                .tag("facility", facility)
+                .register(meterRegistry);
+        FunctionCounter.builder("replica.fallbacks", dataSource, ReplicatedDataSource::primaryFallbacks)
+                .description("Read-only connections served by the primary because of lag or a recent write")
+                .tag("facility", facility)
+                .register(meterRegistry);
+        dataSource.heartbeat();
+    }
+
+    @Scheduled(fixedDelayString = "${replicas.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        replicated.values().forEach(ReplicatedDataSource::heartbeat);
+    }
+}
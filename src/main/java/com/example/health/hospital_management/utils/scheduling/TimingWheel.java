@@ -0,0 +1,140 @@
+package com.example.health.hospital_management.utils.scheduling;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel. Level 0 has one bucket per tick; each level above covers {@code wheelSize}
+ * buckets of the level below. Timers far in the future sit in a coarse bucket and are cascaded down as
+ * their time approaches, so scheduling, cancelling and each tick are O(1) however many timers are held.
+ * Deadlines past the top level's reach are refused. The wheel only moves when {@link #advance} is called.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final List<List<Set<Timer<T>>>> buckets = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T task;
+        private Set<Timer<T>> bucket;
+
+        private Timer(long deadlineTick, T task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public T task() {
+            return task;
+        }
+    }
+
+    public TimingWheel(long tickMillis, int wheelSize, long horizonMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        int levelCount = 1;
+        long reach = wheelSize;
+        while (reach * tickMillis < horizonMillis) {
+            reach *= wheelSize;
+            levelCount++;
+        }
+        this.levels = levelCount;
+        for (int level = 0; level < levels; level++) {
+            List<Set<Timer<T>>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new LinkedHashSet<>());
+            }
+            buckets.add(wheel);
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Returns a handle for {@link #cancel}, or null when the deadline lies beyond the wheel's reach.
+     * Deadlines already passed fire on the next tick.
+     */
+    public synchronized Timer<T> schedule(long deadlineMillis, T task) {
+        Timer<T> timer = new Timer<>(Math.max(deadlineMillis / tickMillis, currentTick + 1), task);
+        return place(timer) ? timer : null;
+    }
+
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.bucket == null) {
+            return false;
+        }
+        timer.bucket.remove(timer);
+        timer.bucket = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel up to the given time and returns the tasks that came due, tick by tick.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade from the highest level whose boundary was crossed down to level 1
+            for (int level = levelsCrossed(); level >= 1; level--) {
+                Set<Timer<T>> bucket = buckets.get(level).get((int) ((currentTick / pow(level)) % wheelSize));
+                List<Timer<T>> cascading = new ArrayList<>(bucket);
+                bucket.clear();
+                size -= cascading.size();
+                cascading.forEach(this::place);
+            }
+            Set<Timer<T>> bucket = buckets.get(0).get((int) (currentTick % wheelSize));
+            for (Timer<T> timer : bucket) {
+                timer.bucket = null;
+                due.add(timer.task);
+            }
+            size -= bucket.size();
+            bucket.clear();
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long reachMillis() {
+        return pow(levels) * tickMillis;
+    }
+
+    private int levelsCrossed() {
+        int crossed = 0;
+        for (int level = 1; level < levels && currentTick % pow(level) == 0; level++) {
+            crossed = level;
+        }
+        return crossed;
+    }
+
+    private boolean place(Timer<T> timer) {
+        for (int level = 0; level < levels; level++) {
+            long span = pow(level);
+            if (timer.deadlineTick / span - currentTick / span <= wheelSize) {
+                Set<Timer<T>> bucket = buckets.get(level).get((int) ((timer.deadlineTick / span) % wheelSize));
+                bucket.add(timer);
+                timer.bucket = bucket;
+                size++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long pow(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return span;
+    }
+}
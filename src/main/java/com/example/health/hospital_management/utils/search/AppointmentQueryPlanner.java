@@ -0,0 +1,144 @@
+package com.example.health.hospital_management.utils.search;
+
+import com.example.health.hospital_management.entities.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Builds the SQL for an appointment search and picks the composite index that should drive it. Every index
+ * ends in the appointment date, and InnoDB appends the id, so with one value on the leading column a page is
+ * a single index range read already in (date, id) order that stops at the limit. MySQL will not merge
+ * several such ranges in that order, so a department's doctors each get their own limited subquery and only
+ * those rows are sorted: a page reads at most limit rows per doctor however deep it is. Patient is the most
+ * selective filter, then doctor, then status; with none of those, the date index. The status and date
+ * indexes lead with the facility, which the others get from their ids.
+ */
+public class AppointmentQueryPlanner {
+    public static final String PATIENT_INDEX = "idx_appointments_patient_date";
+    public static final String DOCTOR_INDEX = "idx_appointments_doctor_date";
+    public static final String STATUS_INDEX = "idx_appointments_status_date";
+    public static final String DATE_INDEX = "idx_appointments_date";
+
+    private final int maxDoctorsForDoctorIndex;
+
+    /**
+     * doctorIds is null for any doctor, or the doctors to match (e.g. everyone in a department). Dates and
+     * times are inclusive; time bounds filter on the time of day within each date.
+     */
+    public record Criteria(String facility, Long patientId, Collection<Long> doctorIds, Status status,
+                           LocalDate from, LocalDate to, LocalTime timeFrom, LocalTime timeTo) {
+    }
+
+    public record Cursor(LocalDate date, long id) {
+    }
+
+    public record Plan(String index, String sql, Map<String, Object> parameters) {
+    }
+
+    // Each doctor is a subquery of up to limit rows; past this many the status or date index is cheaper
+    public AppointmentQueryPlanner(int maxDoctorsForDoctorIndex) {
+        this.maxDoctorsForDoctorIndex = maxDoctorsForDoctorIndex;
+    }
+
+    public String chooseIndex(Criteria criteria) {
+        if (criteria.patientId() != null) {
+            return PATIENT_INDEX;
+        }
+        if (criteria.doctorIds() != null && criteria.doctorIds().size() <= maxDoctorsForDoctorIndex) {
+            return DOCTOR_INDEX;
+        }
+        if (criteria.status() != null) {
+            return STATUS_INDEX;
+        }
+        return DATE_INDEX;
+    }
+
+    public Plan plan(Criteria criteria, Cursor after, int limit) {
+        String index = chooseIndex(criteria);
+        Map<String, Object> parameters = new HashMap<>();
+        List<String> conditions = new ArrayList<>();
+        conditions.add("a.facility = :facility");
+        conditions.add("a.date IS NOT NULL");
+        parameters.put("facility", criteria.facility());
+        if (criteria.patientId() != null) {
+            conditions.add("a.patient_id = :patientId");
+            parameters.put("patientId", criteria.patientId());
+        }
+        if (criteria.status() != null) {
+            // Appointment maps its status by ordinal
+            conditions.add("a.status = :status");
+            parameters.put("status", criteria.status().ordinal());
+        }
+        if (criteria.from() != null) {
+            conditions.add("a.date >= :from");
+            parameters.put("from", criteria.from());
+        }
+        if (criteria.to() != null) {
+            conditions.add("a.date <= :to");
+            parameters.put("to", criteria.to());
+        }
+        if (criteria.timeFrom() != null) {
+            conditions.add("a.time >= :timeFrom");
+            parameters.put("timeFrom", criteria.timeFrom());
+        }
+        if (criteria.timeTo() != null) {
+            conditions.add("a.time <= :timeTo");
+            parameters.put("timeTo", criteria.timeTo());
+        }
+        if (after != null) {
+            // The plain bound on date keeps this a range scan; the OR alone would not be
+            conditions.add("a.date >= :afterDate AND (a.date > :afterDate OR a.id > :afterId)");
+            parameters.put("afterDate", after.date());
+            parameters.put("afterId", after.id());
+        }
+        parameters.put("limit", limit);
+
+        String from;
+        String where = "";
+        if (DOCTOR_INDEX.equals(index) && criteria.doctorIds().size() > 1) {
+            StringJoiner perDoctor = new StringJoiner(" UNION ALL ", "(", ") a");
+            int i = 0;
+            for (Long doctorId : criteria.doctorIds()) {
+                String name = "doctor" + i++;
+                parameters.put(name, doctorId);
+                perDoctor.add("(SELECT a.id, a.date, a.time, a.status, a.patient_id, a.doctor_id"
+                        + " FROM eva_appointments a FORCE INDEX (" + index + ")"
+                        + whereClause(conditions, "a.doctor_id = :" + name)
+                        + " ORDER BY a.date, a.id LIMIT :limit)");
+            }
+            from = perDoctor.toString();
+        } else {
+            if (criteria.doctorIds() != null) {
+                conditions.add("a.doctor_id IN (:doctorIds)");
+                parameters.put("doctorIds", criteria.doctorIds());
+            }
+            from = "eva_appointments a FORCE INDEX (" + index + ")";
+            where = whereClause(conditions, null);
+        }
+        String sql = """
+                SELECT a.id, a.date, a.time, a.status, a.patient_id, p.first_name AS patient_first_name,
+                       p.last_name AS patient_last_name, a.doctor_id, d.first_name AS doctor_first_name,
+                       d.last_name AS doctor_last_name
+                FROM %s
+                JOIN eva_patients p ON p.id = a.patient_id
+                LEFT JOIN eva_doctors d ON d.id = a.doctor_id""".formatted(from)
+                + where + " ORDER BY a.date, a.id LIMIT :limit";
+        return new Plan(index, sql, parameters);
+    }
+
+    private static String whereClause(List<String> conditions, String extra) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+        conditions.forEach(where::add);
+        if (extra != null) {
+            where.add(extra);
+        }
+        return where.toString();
+    }
+}
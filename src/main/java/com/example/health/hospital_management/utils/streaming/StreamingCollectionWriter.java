@@ -0,0 +1,94 @@
+package com.example.health.hospital_management.utils.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes a whole table as a JSON (or CBOR) array without materialising it. Rows are read in keyset
+ * batches, each in its own short read-only transaction, mapped, written and flushed before the next
+ * batch is loaded, so memory use and time to first byte do not grow with the table. The persistence
+ * context is cleared after every batch, so entities do not pile up even when a request-scoped
+ * EntityManager is still bound to the streaming thread.
+ */
+@Component
+public class StreamingCollectionWriter {
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public StreamingCollectionWriter(ObjectMapper jsonMapper,
+                                     Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                     PlatformTransactionManager transactionManager,
+                                     EntityManager entityManager,
+                                     @Value("${streaming.batch-size:500}") int batchSize) {
+        this.jsonMapper = jsonMapper;
+        // The injected builder is a fresh prototype carrying Boot's Jackson settings, so reusing it for CBOR is safe
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    @FunctionalInterface
+    public interface BatchLoader<D> {
+        List<D> nextBatch(long afterId, int limit);
+    }
+
+    public MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            if (mediaType.equalsTypeAndSubtype(APPLICATION_CBOR)) {
+                return APPLICATION_CBOR;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    public <D> StreamingResponseBody stream(MediaType mediaType, BatchLoader<D> loader, ToLongFunction<D> idOf) {
+        ObjectMapper objectMapper = APPLICATION_CBOR.equalsTypeAndSubtype(mediaType) ? cborMapper : jsonMapper;
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                long lastId = Long.MIN_VALUE;
+                List<D> batch;
+                do {
+                    long afterId = lastId;
+                    // Loaders map inside the transaction so lazy associations resolve; the rows are DTOs by the time it is cleared
+                    batch = readOnlyTransaction.execute(status -> {
+                        List<D> rows = loader.nextBatch(afterId, batchSize);
+                        entityManager.clear();
+                        return rows;
+                    });
+                    for (D row : batch) {
+                        objectMapper.writeValue(generator, row);
+                        lastId = idOf.applyAsLong(row);
+                    }
+                    generator.flush();
+                } while (batch.size() == batchSize);
+                generator.writeEndArray();
+            }
+        };
+    }
+}
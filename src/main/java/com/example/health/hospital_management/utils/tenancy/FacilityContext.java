@@ -0,0 +1,57 @@
+package com.example.health.hospital_management.utils.tenancy;
+
+import java.util.function.Supplier;
+
+/**
+ * The facility the current thread is working for. Set per request from the JWT by JwtAuthFilter; anything
+ * running without one (startup loaders, scheduled jobs, unauthenticated endpoints) works for the default
+ * facility. Work handed to another thread must be wrapped to carry the facility along.
+ */
+public final class FacilityContext {
+    public static final String DEFAULT_FACILITY = "main";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private FacilityContext() {
+    }
+
+    public static String current() {
+        String facility = CURRENT.get();
+        return facility == null ? DEFAULT_FACILITY : facility;
+    }
+
+    public static void set(String facility) {
+        CURRENT.set(facility);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static <T> T callAs(String facility, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(facility);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static Runnable wrap(Runnable work) {
+        String facility = current();
+        return () -> callAs(facility, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> work) {
+        String facility = current();
+        return () -> callAs(facility, work);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.health.hospital_management.utils.tenancy;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+// Fills and filters the @TenantId facility column of facility-scoped entities
+public class FacilityIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return FacilityContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.health.hospital_management.utils.tenancy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the current facility. Facilities without a database of their own
+ * fall back to the default pool, where their rows are kept apart by the facility column.
+ */
+public class FacilityRoutingDataSource extends AbstractRoutingDataSource {
+    private Map<String, HikariDataSource> primaryPools = Map.of();
+
+    // The pool of each facility's primary database, also when it sits behind a read replica router
+    public void setPrimaryPools(Map<String, HikariDataSource> primaryPools) {
+        this.primaryPools = Map.copyOf(primaryPools);
+    }
+
+    /**
+     * Statistics of the primary pool the current facility draws from, or null until Hikari has started it.
+     */
+    public HikariPoolMXBean currentPool() {
+        HikariDataSource pool = primaryPools.get(FacilityContext.current());
+        if (pool == null) {
+            pool = primaryPools.get(FacilityContext.DEFAULT_FACILITY);
+        }
+        return pool == null ? null : pool.getHikariPoolMXBean();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return FacilityContext.current();
+    }
+
+    // Called by Spring on shutdown; the per-facility pools are not beans of their own
+    public void close() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.health.hospital_management.utils.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers side effects outside the database (caches, the change feed, in-memory indexes) until the current
+ * transaction has committed, so a rollback never leaves them ahead of what was stored. Without a
+ * transaction the work runs straight away.
+ */
+public class AfterCommit {
+    public static void run(Runnable work) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            work.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                work.run();
+            }
+        });
+    }
+}
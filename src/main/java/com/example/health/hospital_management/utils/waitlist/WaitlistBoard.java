@@ -0,0 +1,137 @@
+package com.example.health.hospital_management.utils.waitlist;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of waiting patients, one priority queue per doctor and one per department. Queues are
+ * lock-free skip lists ordered best first, so finding a match only looks at the front of two queues, and
+ * removing an entry from its queue is the single atomic step that decides who owns it: a claim and a
+ * withdrawal racing for the same patient cannot both win.
+ */
+public class WaitlistBoard {
+    private static final Comparator<Candidate> RANK = Comparator.comparingInt(Candidate::priority).reversed()
+            .thenComparingLong(Candidate::requestedAtMillis)
+            .thenComparingLong(Candidate::entryId);
+
+    private final Map<Long, NavigableSet<Candidate>> byDoctor = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Candidate>> byDepartment = new ConcurrentHashMap<>();
+    private final Map<Long, Candidate> byPatient = new ConcurrentHashMap<>();
+    private final int maxProbes;
+
+    /**
+     * A waiting patient. Either doctorId or department is set: a patient waits for a particular doctor or
+     * for anyone in a department. A wantedBefore date only accepts slots earlier than it.
+     */
+    public record Candidate(long entryId, long patientId, Long doctorId, String department, int priority,
+                            LocalDate wantedBefore, long requestedAtMillis) {
+        boolean accepts(LocalDate slotDate) {
+            return wantedBefore == null || slotDate.isBefore(wantedBefore);
+        }
+    }
+
+    // maxProbes bounds how far past ineligible entries a claim looks in each queue
+    public WaitlistBoard(int maxProbes) {
+        this.maxProbes = maxProbes;
+    }
+
+    /**
+     * Returns false when the patient is already waiting.
+     */
+    public boolean add(Candidate candidate) {
+        if (byPatient.putIfAbsent(candidate.patientId(), candidate) != null) {
+            return false;
+        }
+        queueOf(candidate).add(candidate);
+        return true;
+    }
+
+    /**
+     * Takes the patient off the board. Returns null when they were not waiting or a claim got there first.
+     */
+    public Candidate withdraw(long patientId) {
+        Candidate candidate = byPatient.get(patientId);
+        if (candidate == null || !queueOf(candidate).remove(candidate)) {
+            return null;
+        }
+        byPatient.remove(patientId, candidate);
+        return candidate;
+    }
+
+    /**
+     * Takes everyone waiting for this doctor off the board and returns them, leaving out any a claim got to first.
+     */
+    public List<Candidate> withdrawDoctor(long doctorId) {
+        NavigableSet<Candidate> queue = byDoctor.get(doctorId);
+        if (queue == null) {
+            return List.of();
+        }
+        List<Candidate> withdrawn = new ArrayList<>();
+        for (Candidate candidate : queue) {
+            if (queue.remove(candidate)) {
+                byPatient.remove(candidate.patientId(), candidate);
+                withdrawn.add(candidate);
+            }
+        }
+        return withdrawn;
+    }
+
+    /**
+     * Removes and returns the best-ranked patient who would take a slot with this doctor on this date,
+     * comparing those waiting for the doctor with those waiting for the department. Null when nobody fits.
+     */
+    public Candidate claim(long doctorId, String department, LocalDate slotDate) {
+        NavigableSet<Candidate> doctorQueue = byDoctor.get(doctorId);
+        NavigableSet<Candidate> departmentQueue = department == null ? null : byDepartment.get(department);
+        while (true) {
+            Candidate forDoctor = firstAccepting(doctorQueue, slotDate);
+            Candidate forDepartment = firstAccepting(departmentQueue, slotDate);
+            Candidate best = forDoctor == null ? forDepartment
+                    : forDepartment == null || RANK.compare(forDoctor, forDepartment) <= 0 ? forDoctor
+                    : forDepartment;
+            if (best == null) {
+                return null;
+            }
+            // Another claim or a withdrawal may have taken it since we looked; if so, look again
+            if ((best == forDoctor ? doctorQueue : departmentQueue).remove(best)) {
+                byPatient.remove(best.patientId(), best);
+                return best;
+            }
+        }
+    }
+
+    public Candidate get(long patientId) {
+        return byPatient.get(patientId);
+    }
+
+    public int size() {
+        return byPatient.size();
+    }
+
+    private Candidate firstAccepting(NavigableSet<Candidate> queue, LocalDate slotDate) {
+        if (queue == null) {
+            return null;
+        }
+        Iterator<Candidate> it = queue.iterator();
+        for (int probes = 0; probes < maxProbes && it.hasNext(); probes++) {
+            Candidate candidate = it.next();
+            if (candidate.accepts(slotDate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private NavigableSet<Candidate> queueOf(Candidate candidate) {
+        return candidate.doctorId() != null
+                ? byDoctor.computeIfAbsent(candidate.doctorId(), id -> new ConcurrentSkipListSet<>(RANK))
+                : byDepartment.computeIfAbsent(candidate.department(), name -> new ConcurrentSkipListSet<>(RANK));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.config.FacilityProperties;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.AppointmentRepository.DailyCount;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.services.AppointmentAnalyticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The transaction is driven by hand so the rebuild's scan can land between its commit and its afterCompletion
+public class AppointmentAnalyticsServiceTests {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testWriteSeenByTheRebuildIsCountedOnce() throws Exception {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        CountDownLatch scanned = new CountDownLatch(1);
+        when(appointmentRepository.findMaxId()).thenReturn(1L);
+        // The appointment has committed by the time the rebuild scans its range
+        when(appointmentRepository.countByDoctorDateAndStatus(anyLong(), anyLong())).thenAnswer(invocation -> {
+            scanned.countDown();
+            return List.of(dailyCount(7, DATE, Status.BOOKED, 1));
+        });
+        AppointmentAnalyticsService analytics = new AppointmentAnalyticsService(appointmentRepository,
+                mock(DoctorRepository.class), new FacilityProperties(10, Map.of()), 2, 100);
+
+        TransactionSynchronizationManager.initSynchronization();
+        analytics.record(1, null, new AppointmentAnalyticsService.Slot(7, DATE, Status.BOOKED));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+        Thread rebuild = new Thread(analytics::rebuild);
+        rebuild.start();
+        assertTrue(scanned.await(5, TimeUnit.SECONDS));
+        while (rebuild.isAlive() && rebuild.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        // Not swapped in while the commit is still under way
+        assertEquals(-1, analytics.count(null, null, null, null));
+
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        rebuild.join(5000);
+
+        assertEquals(1, analytics.count(null, null, null, null));
+        assertEquals(1, analytics.count(DATE, DATE, List.of(7L), Status.BOOKED));
+    }
+
+    private static DailyCount dailyCount(long doctorId, LocalDate date, Status status, long count) {
+        DailyCount dailyCount = mock(DailyCount.class);
+        when(dailyCount.getDoctorId()).thenReturn(doctorId);
+        when(dailyCount.getDate()).thenReturn(date);
+        when(dailyCount.getStatus()).thenReturn(status);
+        when(dailyCount.getCount()).thenReturn(count);
+        return dailyCount;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.utils.search.AppointmentQueryPlanner;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AppointmentQueryPlannerTests {
+    private final AppointmentQueryPlanner planner = new AppointmentQueryPlanner(3);
+
+    @Test
+    void testMostSelectiveFilterPicksTheIndex() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        assertEquals(AppointmentQueryPlanner.PATIENT_INDEX, planner.chooseIndex(
+                new AppointmentQueryPlanner.Criteria("main", 7L, List.of(1L), Status.BOOKED, from, null, null, null)));
+        assertEquals(AppointmentQueryPlanner.DOCTOR_INDEX, planner.chooseIndex(
+                new AppointmentQueryPlanner.Criteria("main", null, List.of(1L, 2L), Status.BOOKED, from, null, null, null)));
+        // Too many doctors for separate ranges to pay off
+        assertEquals(AppointmentQueryPlanner.STATUS_INDEX, planner.chooseIndex(
+                new AppointmentQueryPlanner.Criteria("main", null, LongStream.range(0, 10).boxed().toList(), Status.BOOKED,
+                        from, null, null, null)));
+        assertEquals(AppointmentQueryPlanner.DATE_INDEX, planner.chooseIndex(
+                new AppointmentQueryPlanner.Criteria("main", null, null, null, from, null, LocalTime.NOON, null)));
+    }
+
+    @Test
+    void testKeysetPlanContinuesAfterTheCursor() {
+        AppointmentQueryPlanner.Plan plan = planner.plan(
+                new AppointmentQueryPlanner.Criteria("main", null, List.of(4L), null, null, null, null, null),
+                new AppointmentQueryPlanner.Cursor(LocalDate.of(2030, 3, 2), 99), 51);
+        assertTrue(plan.sql().contains("FORCE INDEX (" + AppointmentQueryPlanner.DOCTOR_INDEX + ")"));
+        assertTrue(plan.sql().contains("(a.date > :afterDate OR a.id > :afterId)"));
+        assertTrue(plan.sql().endsWith("ORDER BY a.date, a.id LIMIT :limit"));
+        assertEquals(99L, plan.parameters().get("afterId"));
+        assertEquals(51, plan.parameters().get("limit"));
+    }
+
+    @Test
+    void testDepartmentPlanLimitsEachDoctorSeparately() {
+        AppointmentQueryPlanner.Plan plan = planner.plan(
+                new AppointmentQueryPlanner.Criteria("main", null, List.of(4L, 5L), Status.BOOKED, null, null, null, null),
+                null, 51);
+        assertEquals(AppointmentQueryPlanner.DOCTOR_INDEX, plan.index());
+        assertEquals(2, plan.sql().split("ORDER BY a.date, a.id LIMIT :limit\\)").length - 1);
+        assertTrue(plan.sql().contains(" UNION ALL "));
+        assertTrue(plan.sql().contains("a.doctor_id = :doctor1"));
+        assertFalse(plan.sql().contains("IN (:doctorIds)"));
+        assertEquals(5L, plan.parameters().get("doctor1"));
+        assertTrue(plan.sql().endsWith(") a\nJOIN eva_patients p ON p.id = a.patient_id\n"
+                + "LEFT JOIN eva_doctors d ON d.id = a.doctor_id ORDER BY a.date, a.id LIMIT :limit"));
+    }
+}
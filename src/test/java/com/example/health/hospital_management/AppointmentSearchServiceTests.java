@@ -0,0 +1,64 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.dtos.AppointmentSearchPage;
+import com.example.health.hospital_management.dtos.AppointmentSearchRequest;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.services.AppointmentAnalyticsService;
+import com.example.health.hospital_management.services.AppointmentSearchService;
+import com.example.health.hospital_management.services.ReferenceDataService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AppointmentSearchServiceTests {
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+
+    private AppointmentSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        // The first page also asks for an EXPLAIN estimate, which the mock leaves empty
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.query(startsWith("SELECT"), any(Map.class), any(RowMapper.class)))
+                .thenReturn(List.of(row(1), row(2)));
+        searchService = new AppointmentSearchService(jdbcTemplate, mock(DoctorRepository.class),
+                mock(ReferenceDataService.class), mock(AppointmentAnalyticsService.class), new SimpleMeterRegistry(), 50);
+    }
+
+    @Test
+    void testCursorOnlyContinuesTheSearchItWasIssuedFor() {
+        AppointmentSearchRequest booked = request(Status.BOOKED);
+        String cursor = searchService.search(booked, null, 1).nextCursor();
+        assertNotNull(cursor);
+
+        assertEquals(1, searchService.search(booked, cursor, 1).items().size());
+        assertThrows(IllegalArgumentException.class, () -> searchService.search(request(Status.CANCELLED), cursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> FacilityContext.callAs("north", () -> searchService.search(booked, cursor, 1)));
+    }
+
+    private static AppointmentSearchRequest request(Status status) {
+        return new AppointmentSearchRequest(null, 7L, null, status, DATE, null, null, null);
+    }
+
+    private static AppointmentSearchPage.Row row(long id) {
+        return new AppointmentSearchPage.Row(id, DATE, LocalTime.NOON, Status.BOOKED, 7, "Ada", "Patient", null, null, null);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.exceptions.PatientNotFoundException;
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.services.AppointmentAnalyticsService;
+import com.example.health.hospital_management.services.AppointmentChangeFeed;
+import com.example.health.hospital_management.services.AppointmentReminderScheduler;
+import com.example.health.hospital_management.services.AppointmentServiceImpl;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.services.WaitlistService;
+import com.example.health.hospital_management.utils.waitlist.WaitlistBoard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentServiceTests {
+    private static final LocalDate SLOT_DATE = LocalDate.now().plusDays(3);
+    private static final LocalTime SLOT_TIME = LocalTime.of(9, 30);
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private DoctorRepository doctorRepository;
+    @Mock
+    private AppointmentChangeFeed appointmentChangeFeed;
+    @Mock
+    private ResourceVersionService resourceVersionService;
+    @Mock
+    private AppointmentAnalyticsService appointmentAnalyticsService;
+    @Mock
+    private AppointmentReminderScheduler appointmentReminderScheduler;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AppointmentServiceImpl appointmentService;
+
+    @Test
+    void testOfferToWaitlistDropsADeletedPatientAndBooksTheNextOne() {
+        WaitlistService.Claim deleted = claim(1, 100);
+        WaitlistService.Claim waiting = claim(2, 101);
+        when(waitlistService.claim(7, "Cardiology", SLOT_DATE, SLOT_TIME))
+                .thenReturn(Optional.of(deleted), Optional.of(waiting));
+        when(patientRepository.findById(100L)).thenReturn(Optional.empty());
+        when(patientRepository.findById(101L)).thenReturn(Optional.of(Patient.builder().id(101).build()));
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(Doctor.builder().id(7).primaryPatients(List.of()).build()));
+        when(appointmentRepository.save(any())).then(returnsFirstArg());
+
+        appointmentService.offerToWaitlist(7, "Cardiology",
+                new AppointmentInformation(50, null, null, SLOT_DATE, SLOT_TIME, Status.CANCELLED));
+
+        verify(waitlistService).drop(eq(deleted), isA(PatientNotFoundException.class));
+        verify(waitlistService).matched(eq(waiting), anyLong());
+        verify(waitlistService, never()).release(any(), any());
+    }
+
+    private static WaitlistService.Claim claim(long entryId, long patientId) {
+        return new WaitlistService.Claim(
+                new WaitlistBoard.Candidate(entryId, patientId, null, "Cardiology", 1, null, entryId), System.nanoTime());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.entities.AuditLogEntry;
+import com.example.health.hospital_management.repositories.AuditLogRepository;
+import com.example.health.hospital_management.services.AuditLogService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The "north" database is down for the whole test; "main" keeps accepting writes
+public class AuditLogServiceTests {
+    private static final int BUFFER_CAPACITY = 100;
+    private static final int BATCH_SIZE = 10;
+    private static final int MAX_RETAINED = 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> writtenFacilities = new ArrayList<>();
+    private AuditLogService auditLogService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    if (FacilityContext.current().equals("north")) {
+                        throw new DataAccessResourceFailureException("north is down");
+                    }
+                    Collection<AuditLogEntry> entries = invocation.getArgument(1);
+                    entries.forEach(entry -> writtenFacilities.add(entry.getFacility()));
+                    return new int[0][];
+                });
+        auditLogService = new AuditLogService(jdbcTemplate, mock(AuditLogRepository.class), meterRegistry,
+                BUFFER_CAPACITY, BATCH_SIZE, MAX_RETAINED);
+    }
+
+    @Test
+    void testFailingFacilityDoesNotHoldBackTheOthers() {
+        auditLogService.record(IntStream.range(0, 60)
+                .mapToObj(i -> entry(i % 2 == 0 ? "main" : "north", i))
+                .toList());
+        auditLogService.flush();
+
+        assertEquals(30, writtenFacilities.size());
+        assertEquals(10, meterRegistry.counter("audit.entries.dropped").count());
+
+        // More than the buffer could take alongside a stuck backlog
+        for (int round = 0; round < 3; round++) {
+            auditLogService.record(IntStream.range(0, BUFFER_CAPACITY)
+                    .mapToObj(i -> entry("main", i))
+                    .toList());
+            auditLogService.flush();
+        }
+
+        assertEquals(30 + 3 * BUFFER_CAPACITY, writtenFacilities.size());
+        assertEquals(List.of("main"), writtenFacilities.stream().distinct().toList());
+        assertEquals(10, meterRegistry.counter("audit.entries.dropped").count());
+    }
+
+    private static AuditLogEntry entry(String facility, long entityId) {
+        return AuditLogEntry.builder()
+                .facility(facility)
+                .entityType("Patient")
+                .entityId(entityId)
+                .action(AuditLogEntry.Action.UPDATE)
+                .fieldName("address")
+                .changedBy("system")
+                .changedAt(Instant.now())
+                .build();
+    }
+}
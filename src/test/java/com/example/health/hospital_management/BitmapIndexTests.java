@@ -0,0 +1,41 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.utils.index.BitmapIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BitmapIndexTests {
+    private static final int PENICILLIN = 1;
+    private static final int LATEX = 2;
+    private static final int CODEINE = 3;
+
+    @Test
+    void testQueryCombinesAllOfAnyOfAndNoneOf() {
+        BitmapIndex index = new BitmapIndex();
+        index.replace(1, List.of(PENICILLIN, LATEX));
+        index.replace(2, List.of(PENICILLIN, LATEX, CODEINE));
+        index.replace(3, List.of(PENICILLIN));
+        index.replace(4, List.of(CODEINE));
+
+        assertArrayEquals(new long[]{1}, index.query(List.of(PENICILLIN, LATEX), List.of(), List.of(CODEINE)).toArray());
+        assertArrayEquals(new long[]{2, 4}, index.query(List.of(), List.of(CODEINE), List.of()).toArray());
+        assertEquals(0, index.query(List.of(), List.of(), List.of(CODEINE)).getLongCardinality());
+        assertEquals(0, index.query(Arrays.asList(PENICILLIN, null), List.of(), List.of()).getLongCardinality());
+    }
+
+    @Test
+    void testReplaceRemovesPreviousAllergies() {
+        BitmapIndex index = new BitmapIndex();
+        index.replace(7, List.of(PENICILLIN, LATEX));
+        index.replace(7, List.of(CODEINE));
+
+        assertEquals(0, index.query(List.of(PENICILLIN), List.of(), List.of()).getLongCardinality());
+        assertArrayEquals(new long[]{7}, index.query(List.of(CODEINE), List.of(), List.of()).toArray());
+        assertEquals(0L, index.cardinalities().get(LATEX));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.dtos.PatientInformation;
+import com.example.health.hospital_management.entities.enums.BiologicalSex;
+import com.example.health.hospital_management.utils.offheap.OffHeapProfileStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapProfileStoreTests {
+    private static final int PROFILES = 200_000;
+
+    @Test
+    void testPutGetUpdateAndRemove() {
+        OffHeapProfileStore store = new OffHeapProfileStore(256, 1 << 20);
+        PatientInformation patient = patient(7);
+        assertTrue(store.put(patient));
+        assertEquals(patient, store.get(7));
+
+        PatientInformation moved = new PatientInformation(7, "Jane", "Doe", null, "2 New St", null, null, List.of());
+        assertTrue(store.put(moved));
+        assertEquals(moved, store.get(7));
+        assertEquals(1, store.size());
+
+        assertTrue(store.remove(7));
+        assertNull(store.get(7));
+        assertFalse(store.remove(7));
+        assertEquals(0, store.size());
+        assertNull(store.get(8));
+    }
+
+    @Test
+    void testStalePutIsSkippedAfterAWrite() {
+        OffHeapProfileStore store = new OffHeapProfileStore(256, 1 << 20);
+        long generation = store.generation();
+        store.remove(1);
+
+        assertFalse(store.putIfUnchanged(patient(1), generation));
+        assertTrue(store.putIfUnchanged(patient(1), store.generation()));
+        assertEquals(patient(1), store.get(1));
+    }
+
+    @Test
+    void testChurnIsCompactedWithinTheBudgetAndTheIndexGrows() {
+        // Exactly enough for profiles 1 to 3000
+        int maxBytes = (int) fill(new OffHeapProfileStore(1 << 20, 1 << 20), 3000).liveBytes();
+        OffHeapProfileStore store = fill(new OffHeapProfileStore(4096, maxBytes), 2000);
+
+        // Far more bytes than the budget are written; dead copies have to be reclaimed to make room
+        for (int round = 0; round < 20; round++) {
+            for (long id = 1; id <= 2000; id++) {
+                assertTrue(store.put(patient(id)));
+            }
+        }
+        for (long id = 1; id <= 1000; id++) {
+            store.remove(id);
+        }
+        assertEquals(1000, store.size());
+        for (long id = 1; id <= 2000; id++) {
+            assertEquals(id > 1000 ? patient(id) : null, store.get(id));
+        }
+        assertTrue(store.liveBytes() < maxBytes);
+
+        // A live set over the budget is rejected rather than grown into
+        fill(store, 3000);
+        assertFalse(store.put(patient(3001)));
+        assertEquals(3000, store.size());
+    }
+
+    // The same profiles held in an on-heap HashMap and in the off-heap store, compared by heap retained
+    @Test
+    @Tag("benchmark")
+    void testOffHeapStoreRetainsLittleHeap() {
+        Map<Long, PatientInformation> heapCache = new HashMap<>();
+        long heapRetained = retained(() -> {
+            for (long id = 1; id <= PROFILES; id++) {
+                heapCache.put(id, patient(id));
+            }
+            return heapCache;
+        });
+        heapCache.clear();
+
+        OffHeapProfileStore store = new OffHeapProfileStore(1 << 20, 1 << 28);
+        long offHeapRetained = retained(() -> fill(store, PROFILES));
+        assertEquals(PROFILES, store.size());
+        assertTrue(offHeapRetained < heapRetained / 10);
+    }
+
+    private static OffHeapProfileStore fill(OffHeapProfileStore store, int count) {
+        for (long id = 1; id <= count; id++) {
+            assertTrue(store.put(patient(id)));
+        }
+        return store;
+    }
+
+    private static PatientInformation patient(long id) {
+        return new PatientInformation(
+                id,
+                "Patient" + id,
+                "Surname" + id,
+                "555-01" + id % 100,
+                id + " Main St, Springfield, IL 62701",
+                LocalDate.of(1950 + (int) (id % 60), 1 + (int) (id % 12), 1 + (int) (id % 28)),
+                BiologicalSex.values()[(int) (id % BiologicalSex.values().length)],
+                id % 3 == 0 ? List.of("Penicillin", "Peanuts") : List.of());
+    }
+
+    // Heap still in use after building the cache, beyond what was in use before
+    private static long retained(Supplier<Object> build) {
+        long before = usedAfterGc();
+        Object cache = build.get();
+        long after = usedAfterGc();
+        assertTrue(cache != null);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
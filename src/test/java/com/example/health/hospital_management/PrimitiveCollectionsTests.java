@@ -0,0 +1,145 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.dtos.AppointmentInformation;
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.entities.enums.BiologicalSex;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.utils.mappers.AppointmentMapper;
+import com.example.health.hospital_management.utils.primitive.LongArrayList;
+import com.example.health.hospital_management.utils.primitive.LongHashSet;
+import com.example.health.hospital_management.utils.primitive.LongIntHashMap;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimitiveCollectionsTests {
+    private static final int ITERATIONS = 200;
+
+    @Test
+    void testLongIntHashMapAgreesWithAHashMapThroughRehashing() {
+        LongIntHashMap map = new LongIntHashMap(2, -1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long key = i % 10 == 0 ? 0 : random.nextLong(-5_000, 5_000);
+            Integer previous = expected.put(key, i);
+            assertEquals(previous == null ? -1 : previous, map.put(key, i));
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        assertEquals(-1, map.get(5_000));
+        assertFalse(map.containsKey(5_000));
+    }
+
+    @Test
+    void testLongHashSetAndLongArrayList() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        LongArrayList added = new LongArrayList(1);
+        for (long value = -1_000; value <= 1_000; value += 3) {
+            assertEquals(expected.add(value % 500), set.add(value % 500));
+            added.add(value);
+        }
+        assertEquals(expected.size(), set.size());
+        expected.forEach(value -> assertTrue(set.contains(value)));
+        assertFalse(set.contains(777));
+
+        assertEquals(667, added.size());
+        assertEquals(-1_000, added.get(0));
+        assertEquals(998, added.get(666));
+        assertArrayEquals(new long[]{-1_000, -997}, Arrays.copyOf(added.toArray(), 2));
+    }
+
+    // A doctor's appointment list as getAppointmentsById maps it, each appointment on its own against the whole list
+    @Test
+    void testMappingAListSharesDtos() {
+        List<Appointment> appointments = doctorSchedule(40, 200);
+
+        List<AppointmentInformation> perAppointment = appointments.stream().map(AppointmentMapper::toDto).toList();
+        List<AppointmentInformation> shared = AppointmentMapper.toDtos(appointments);
+        assertEquals(perAppointment, shared);
+        assertSame(shared.get(0).doctor(), shared.get(1).doctor());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testMappingAListAllocatesLess() {
+        List<Appointment> appointments = doctorSchedule(40, 200);
+
+        long before = allocatedPerRequest(() -> appointments.stream().map(AppointmentMapper::toDto).toList());
+        long after = allocatedPerRequest(() -> AppointmentMapper.toDtos(appointments));
+        assertTrue(after < before);
+    }
+
+    // One doctor with a panel of patients, each of whom has several appointments
+    private static List<Appointment> doctorSchedule(int patientCount, int appointmentCount) {
+        List<Patient> patients = new ArrayList<>();
+        Doctor doctor = Doctor.builder()
+                .id(1)
+                .firstName("Gregory")
+                .lastName("House")
+                .specialization("Diagnostics")
+                .department("Internal Medicine")
+                .phone("555-0100")
+                .email("house@example.com")
+                .primaryPatients(patients)
+                .build();
+        for (long id = 1; id <= patientCount; id++) {
+            patients.add(Patient.builder()
+                    .id(id)
+                    .firstName("Patient" + id)
+                    .lastName("Surname" + id)
+                    .dateOfBirth(LocalDate.of(1960, 1, 1).plusDays(id * 97))
+                    .biologicalSex(BiologicalSex.values()[(int) (id % BiologicalSex.values().length)])
+                    .phoneNumber("555-010-" + (1000 + id))
+                    .address(id + " Main St, Springfield, IL 62701")
+                    .allergies(List.of("Penicillin"))
+                    .primaryDoctor(doctor)
+                    .build());
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < appointmentCount; i++) {
+            appointments.add(Appointment.builder()
+                    .id(i + 1)
+                    .patient(patients.get(i % patientCount))
+                    .doctor(doctor)
+                    .date(LocalDate.of(2026, 1, 5).plusDays(i / 8))
+                    .time(LocalTime.of(9, 0).plusMinutes(30L * (i % 8)))
+                    .status(Status.BOOKED)
+                    .build());
+        }
+        return appointments;
+    }
+
+    private static long allocatedPerRequest(Supplier<Object> request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.get();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.get();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+}
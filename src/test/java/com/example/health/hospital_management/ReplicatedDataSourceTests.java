@@ -0,0 +1,225 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.dtos.UpdateDoctorRequest;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.services.DoctorService;
+import com.example.health.hospital_management.services.DoctorServiceImpl;
+import com.example.health.hospital_management.services.ReferenceDataService;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.services.WaitlistService;
+import com.example.health.hospital_management.utils.cache.SerializedResponseCache;
+import com.example.health.hospital_management.utils.concurrency.RequestCoalescer;
+import com.example.health.hospital_management.utils.routing.ReplicatedDataSource;
+import com.example.health.hospital_management.utils.tenancy.FacilityIdentifierResolver;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Two embedded H2 databases stand in for the primary and the replica behind the real DoctorService and
+ * DoctorRepository. "Replication" copies the primary into the replica, which then renames its doctors so
+ * every read shows which database served it.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DoctorServiceImpl.class, ReplicatedDataSourceTests.Databases.class})
+public class ReplicatedDataSourceTests {
+    private static final MutableClock CLOCK = new MutableClock();
+    private static final DataSource PRIMARY = database("primary");
+    private static final DataSource REPLICA = database("replica");
+
+    @MockitoBean
+    private ReferenceDataService referenceDataService;
+    @MockitoBean
+    private ResourceVersionService resourceVersionService;
+    @MockitoBean
+    private SerializedResponseCache serializedResponseCache;
+    @MockitoBean
+    private RequestCoalescer requestCoalescer;
+    @MockitoBean
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ReplicatedDataSource replicated;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private long doctorId;
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Databases {
+        @Bean
+        ReplicatedDataSource dataSource() {
+            return new ReplicatedDataSource(PRIMARY, REPLICA, 1000, 2000, CLOCK);
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer facilityIdentifierResolver() {
+            return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new FacilityIdentifierResolver());
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(PRIMARY);
+        replica = new JdbcTemplate(REPLICA);
+        // The replica starts out empty, so its lag is unknown until the next replicate()
+        replica.execute("DROP ALL OBJECTS");
+        replicated.heartbeat();
+        primary.update("INSERT INTO eva_doctors (first_name, last_name, phone, email, facility, version) "
+                + "VALUES ('Ada', 'Primary', '555-0100', 'ada@example.com', 'main', 0)");
+        doctorId = primary.queryForObject("SELECT MAX(id) FROM eva_doctors", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.update("DELETE FROM eva_doctors");
+    }
+
+    @Test
+    void testReadOnlyServiceCallsUseTheReplicaOnceItHasCaughtUp() {
+        // No heartbeat seen yet, so the lag is unknown
+        assertEquals("Primary", doctorService.getDoctorById(doctorId).lastName());
+
+        replicate();
+        assertTrue(replicated.replicaUsable());
+        // The by-id endpoints read the version for the ETag outside a transaction first
+        assertTrue(doctorRepository.findVersionById(doctorId).isPresent());
+        assertEquals("Replica", doctorService.getDoctorById(doctorId).lastName());
+    }
+
+    @Test
+    void testWriteAfterReadOnlyTransactionGoesToPrimary() {
+        replicate();
+        assertEquals("Replica", doctorService.getDoctorById(doctorId).lastName());
+
+        doctorService.updateDoctor(doctorId, new UpdateDoctorRequest("Ada", "Updated", null, "555-0100", null));
+
+        assertEquals("Updated", lastName(primary));
+        assertEquals("Replica", lastName(replica));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        replicate();
+        CLOCK.advance(1500);
+        // The primary moves on, the replica does not receive it
+        replicated.heartbeat();
+
+        assertEquals(1500, replicated.lagMillis());
+        assertFalse(replicated.replicaUsable());
+        long fallbacks = replicated.primaryFallbacks();
+        assertEquals("Primary", doctorService.getDoctorById(doctorId).lastName());
+        assertEquals(fallbacks + 1, replicated.primaryFallbacks());
+
+        replicate();
+        assertEquals("Replica", doctorService.getDoctorById(doctorId).lastName());
+    }
+
+    @Test
+    void testUserReadsTheirOwnWritesFromPrimary() {
+        replicate();
+        signIn("staff@example.com");
+
+        doctorService.updateDoctor(doctorId, new UpdateDoctorRequest("Ada", "Updated", null, "555-0100", null));
+        assertEquals("Updated", doctorService.getDoctorById(doctorId).lastName());
+
+        CLOCK.advance(2000);
+        replicate();
+        assertEquals("Replica", doctorService.getDoctorById(doctorId).lastName());
+
+        // Other users are not pinned by someone else's write
+        doctorService.updateDoctor(doctorId, new UpdateDoctorRequest("Ada", "Again", null, "555-0100", null));
+        signIn("doctor@example.com");
+        assertEquals("Replica", doctorService.getDoctorById(doctorId).lastName());
+    }
+
+    private String lastName(JdbcTemplate database) {
+        return database.queryForObject("SELECT last_name FROM eva_doctors WHERE id = ?", String.class, doctorId);
+    }
+
+    // Copies the primary, heartbeat included, into the replica and marks the replica's rows
+    private void replicate() {
+        replicated.heartbeat();
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+        replica.update("UPDATE eva_doctors SET last_name = 'Replica'");
+        replicated.heartbeat();
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis = 1_000_000;
+
+        void advance(long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.repositories.AppointmentRepository;
+import com.example.health.hospital_management.repositories.CollectionVersionRepository;
+import com.example.health.hospital_management.repositories.DoctorRepository;
+import com.example.health.hospital_management.repositories.PatientRepository;
+import com.example.health.hospital_management.services.ResourceVersionService;
+import com.example.health.hospital_management.utils.tenancy.FacilityContext;
+import com.example.health.hospital_management.utils.tenancy.FacilityIdentifierResolver;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Embedded H2 in MySQL mode; a second ResourceVersionService over the same database stands in for another instance
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:collection-versions;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ResourceVersionService.class, ResourceVersionServiceTests.Facilities.class})
+public class ResourceVersionServiceTests {
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private CollectionVersionRepository collectionVersionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Facilities {
+        @Bean
+        HibernatePropertiesCustomizer facilityIdentifierResolver() {
+            return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new FacilityIdentifierResolver());
+        }
+    }
+
+    @Test
+    void testCollectionTagsAreSharedByInstancesAndScopedToTheFacility() {
+        ResourceVersionService otherInstance = new ResourceVersionService(
+                patientRepository, doctorRepository, appointmentRepository, collectionVersionRepository);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String patients = otherInstance.patientsETag();
+        String appointments = otherInstance.appointmentsETag();
+        String northPatients = FacilityContext.callAs("north", otherInstance::patientsETag);
+
+        transaction.executeWithoutResult(status -> resourceVersionService.patientsChanged());
+
+        assertNotEquals(patients, otherInstance.patientsETag());
+        // Appointments embed their patient
+        assertNotEquals(appointments, otherInstance.appointmentsETag());
+        assertEquals(northPatients, FacilityContext.callAs("north", otherInstance::patientsETag));
+
+        // A rolled back write leaves the version where it was
+        patients = otherInstance.patientsETag();
+        transaction.executeWithoutResult(status -> {
+            resourceVersionService.patientsChanged();
+            status.setRollbackOnly();
+        });
+        assertEquals(patients, otherInstance.patientsETag());
+    }
+
+    @Test
+    void testVersionIsOnlyBumpedInsideTheWriteTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> resourceVersionService.doctorsChanged());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.utils.streaming.StreamingCollectionWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Id;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Embedded H2 with a stand-in entity; the request's EntityManager is bound to the thread the way open-in-view does
+public class StreamingCollectionWriterTests {
+    private static final int ROWS = 180;
+    private static final int BATCH_SIZE = 50;
+
+    private static SessionFactory sessionFactory;
+
+    @Entity(name = "StreamedPatient")
+    public static class StreamedPatient {
+        @Id
+        private long id;
+        private String lastName;
+    }
+
+    @BeforeAll
+    static void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(StreamedPatient.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:streaming-writer;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 1; i <= ROWS; i++) {
+                StreamedPatient patient = new StreamedPatient();
+                patient.id = i;
+                patient.lastName = "Surname" + i;
+                session.persist(patient);
+            }
+        });
+    }
+
+    @AfterAll
+    static void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void testPersistenceContextStaysWithinOneBatch() throws Exception {
+        EntityManager shared = SharedEntityManagerCreator.createSharedEntityManager(sessionFactory);
+        StreamingCollectionWriter writer = new StreamingCollectionWriter(new ObjectMapper(),
+                new Jackson2ObjectMapperBuilder(), new JpaTransactionManager(sessionFactory), shared, BATCH_SIZE);
+        EntityManager requestScoped = sessionFactory.createEntityManager();
+        List<Integer> managedPerBatch = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        TransactionSynchronizationManager.bindResource(sessionFactory, new EntityManagerHolder(requestScoped));
+        try {
+            writer.stream(MediaType.APPLICATION_JSON, (afterId, limit) -> {
+                List<Long> ids = shared
+                        .createQuery("from StreamedPatient where id > :afterId order by id", StreamedPatient.class)
+                        .setParameter("afterId", afterId)
+                        .setMaxResults(limit)
+                        .getResultStream()
+                        .map(patient -> patient.id)
+                        .toList();
+                managedPerBatch.add(managedEntities(requestScoped));
+                return ids;
+            }, Long::longValue).writeTo(out);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(sessionFactory);
+        }
+
+        assertEquals(4, managedPerBatch.size());
+        managedPerBatch.forEach(managed -> assertTrue(managed <= BATCH_SIZE));
+        assertEquals(0, managedEntities(requestScoped));
+        assertEquals(ROWS, new ObjectMapper().readValue(out.toByteArray(), long[].class).length);
+        requestScoped.close();
+    }
+
+    private static int managedEntities(EntityManager entityManager) {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+}
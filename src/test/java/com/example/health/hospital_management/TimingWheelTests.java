@@ -0,0 +1,44 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.utils.scheduling.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTests {
+
+    @Test
+    void testTimersFireOnTheirTickAcrossLevels() {
+        // 1s ticks, 60 slots per level, reaching a day: three levels
+        TimingWheel<Long> wheel = new TimingWheel<>(1000, 60, 86_400_000L, 0);
+        long[] deadlines = {1_000, 59_000, 60_000, 61_500, 3_599_000, 3_600_000, 7_265_000, 86_000_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 86_400_000L; now += 1000) {
+            for (long deadline : wheel.advance(now)) {
+                assertEquals(deadline / 1000, now / 1000, "fired at the wrong tick");
+                fired.add(deadline);
+            }
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelAndReach() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 60, 3_600_000L, 0);
+        TimingWheel.Timer<String> timer = wheel.schedule(120_000, "cancelled");
+        wheel.schedule(5_000, "kept");
+        assertTrue(wheel.cancel(timer));
+        assertNull(wheel.schedule(wheel.reachMillis() + 120_000, "too far"));
+
+        assertEquals(List.of("kept"), wheel.advance(600_000));
+    }
+}
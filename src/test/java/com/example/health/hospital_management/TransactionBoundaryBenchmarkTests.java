@@ -0,0 +1,152 @@
+package com.example.health.hospital_management;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Rough comparison of the service layer before and after explicit transaction boundaries, on embedded H2 with
+ * a stand-in entity. Reads: a read-write session against a read-only one (what @Transactional(readOnly = true)
+ * sets up). Updates: find and save as separate transactions against one transaction. Commit and flush counts
+ * are asserted in the default suite; the allocation comparison is tagged as a benchmark.
+ */
+public class TransactionBoundaryBenchmarkTests {
+    private static final int ROWS = 2_000;
+    private static final int ITERATIONS = 20;
+    private static final Consumer<Session> LIST_ALL = session -> session
+            .createSelectionQuery("from BenchmarkPatient", BenchmarkPatient.class)
+            .getResultList();
+
+    private static SessionFactory sessionFactory;
+
+    @Entity(name = "BenchmarkPatient")
+    public static class BenchmarkPatient {
+        @Id
+        private long id;
+        private String firstName;
+        private String lastName;
+        private String address;
+        private LocalDate dateOfBirth;
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+    }
+
+    @BeforeAll
+    static void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(BenchmarkPatient.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:transaction-benchmark;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "100")
+                .buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 1; i <= ROWS; i++) {
+                BenchmarkPatient patient = new BenchmarkPatient();
+                patient.id = i;
+                patient.firstName = "Patient" + i;
+                patient.lastName = "Surname" + i;
+                patient.address = i + " Main St, Springfield, IL 62701";
+                patient.dateOfBirth = LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28);
+                session.persist(patient);
+            }
+        });
+    }
+
+    @AfterAll
+    static void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void testReadOnlySessionNeverFlushes() {
+        Result readWrite = measure(() -> inSession(false, LIST_ALL));
+        Result readOnly = measure(() -> inSession(true, LIST_ALL));
+
+        assertEquals(1, readWrite.flushes());
+        assertEquals(0, readOnly.flushes());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testReadOnlySessionAllocatesLess() {
+        Result readWrite = measure(() -> inSession(false, LIST_ALL));
+        Result readOnly = measure(() -> inSession(true, LIST_ALL));
+
+        assertTrue(readOnly.bytes() < readWrite.bytes());
+    }
+
+    @Test
+    void testUpdateInOneTransactionCommitsOnce() {
+        Result separate = measure(() -> {
+            try (Session session = sessionFactory.openSession()) {
+                // findById and save each ran in a transaction of their own
+                session.beginTransaction();
+                BenchmarkPatient patient = session.find(BenchmarkPatient.class, 1L);
+                session.getTransaction().commit();
+                patient.setAddress("1 Updated St");
+                session.beginTransaction();
+                session.merge(patient);
+                session.getTransaction().commit();
+            }
+        });
+        Result single = measure(() -> inSession(false, session ->
+                session.find(BenchmarkPatient.class, 1L).setAddress("2 Updated St")));
+
+        assertEquals(2, separate.commits());
+        assertEquals(1, single.commits());
+        assertTrue(single.flushes() < separate.flushes());
+    }
+
+    private record Result(long bytes, long commits, long flushes) {
+    }
+
+    private static void inSession(boolean readOnly, Consumer<Session> work) {
+        try (Session session = sessionFactory.openSession()) {
+            if (readOnly) {
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+            }
+            session.beginTransaction();
+            work.accept(session);
+            session.getTransaction().commit();
+        }
+    }
+
+    // Per request: average bytes allocated on this thread, commits and flushes
+    private static Result measure(Runnable request) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return new Result(
+                (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS,
+                statistics.getSuccessfulTransactionCount() / ITERATIONS,
+                statistics.getFlushCount() / ITERATIONS);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.utils.waitlist.WaitlistBoard;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WaitlistBoardTests {
+    private static final LocalDate SLOT = LocalDate.of(2030, 1, 15);
+
+    @Test
+    void testClaimTakesBestRankedAcrossDoctorAndDepartment() {
+        WaitlistBoard board = new WaitlistBoard(8);
+        board.add(new WaitlistBoard.Candidate(1, 100, 7L, null, 1, null, 10));
+        board.add(new WaitlistBoard.Candidate(2, 101, null, "Cardiology", 5, null, 20));
+        // Higher priority but only takes slots before the 10th
+        board.add(new WaitlistBoard.Candidate(3, 102, 7L, null, 9, LocalDate.of(2030, 1, 10), 5));
+
+        assertEquals(101, board.claim(7, "Cardiology", SLOT).patientId());
+        assertEquals(100, board.claim(7, "Cardiology", SLOT).patientId());
+        assertNull(board.claim(7, "Cardiology", SLOT));
+        assertEquals(102, board.claim(7, "Cardiology", LocalDate.of(2030, 1, 9)).patientId());
+        assertEquals(0, board.size());
+    }
+
+    @Test
+    void testWithdrawDoctorLeavesDepartmentWaitersOnTheBoard() {
+        WaitlistBoard board = new WaitlistBoard(8);
+        board.add(new WaitlistBoard.Candidate(1, 100, 7L, null, 1, null, 10));
+        board.add(new WaitlistBoard.Candidate(2, 101, 7L, null, 2, null, 20));
+        board.add(new WaitlistBoard.Candidate(3, 102, null, "Cardiology", 1, null, 30));
+
+        assertEquals(List.of(101L, 100L), board.withdrawDoctor(7).stream().map(WaitlistBoard.Candidate::patientId).toList());
+        assertNull(board.get(100));
+        assertEquals(102, board.claim(7, "Cardiology", SLOT).patientId());
+        assertEquals(0, board.size());
+    }
+
+    @Test
+    void testConcurrentClaimsAndWithdrawalsNeverHandOutAPatientTwice() throws Exception {
+        int patients = 20_000;
+        WaitlistBoard board = new WaitlistBoard(16);
+        for (int i = 0; i < patients; i++) {
+            boolean byDoctor = i % 2 == 0;
+            board.add(new WaitlistBoard.Candidate(i, i, byDoctor ? (long) (i % 4) : null,
+                    byDoctor ? null : "Dept" + (i % 3), i % 5, null, i));
+        }
+        Set<Long> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int worker = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int n = 0; n < patients; n++) {
+                    WaitlistBoard.Candidate candidate = worker == 0
+                            ? board.withdraw(n)
+                            : board.claim(n % 4, "Dept" + (n % 3), SLOT);
+                    if (candidate != null && !taken.add(candidate.patientId())) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : workers) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(0, duplicates.get());
+        assertEquals(patients, taken.size() + board.size());
+        assertTrue(taken.size() > 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.health.hospital_management;
+
+import com.example.health.hospital_management.entities.Appointment;
+import com.example.health.hospital_management.entities.Doctor;
+import com.example.health.hospital_management.entities.Patient;
+import com.example.health.hospital_management.entities.enums.BiologicalSex;
+import com.example.health.hospital_management.entities.enums.Status;
+import com.example.health.hospital_management.utils.mappers.AppointmentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Rough comparison of the nested JSON the appointment index returns today against CBOR and the
+ * normalized layout. Only encoded sizes are compared, so it stays stable on CI.
+ */
+public class WireFormatBenchmarkTests {
+    private final ObjectMapper json = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper cbor = new CBORMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void testNormalizedCborIsSmallerThanNestedJson() throws Exception {
+        List<Appointment> appointments = sampleAppointments(40, 800, 5000);
+        var nested = appointments.stream().map(AppointmentMapper::toDto).toList();
+        var normalized = AppointmentMapper.toNormalized(appointments);
+
+        int nestedJson = json.writeValueAsBytes(nested).length;
+        int nestedCbor = cbor.writeValueAsBytes(nested).length;
+        int normalizedJson = json.writeValueAsBytes(normalized).length;
+        int normalizedCbor = cbor.writeValueAsBytes(normalized).length;
+
+        assertTrue(nestedCbor < nestedJson);
+        assertTrue(normalizedJson < nestedJson);
+        assertTrue(normalizedCbor < normalizedJson);
+    }
+
+    private static List<Appointment> sampleAppointments(int doctorCount, int patientCount, int appointmentCount) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 1; i <= doctorCount; i++) {
+            doctors.add(Doctor.builder()
+                    .id(i)
+                    .firstName("Doctor" + i)
+                    .lastName("Lastname" + i)
+                    .department("Department " + (i % 6))
+                    .specialization("Specialization " + (i % 9))
+                    .phone("555-01" + i)
+                    .email("doctor" + i + "@eva-hospital.com")
+                    .primaryPatients(new ArrayList<>())
+                    .build());
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 1; i <= patientCount; i++) {
+            Doctor primary = doctors.get(i % doctorCount);
+            Patient patient = Patient.builder()
+                    .id(i)
+                    .firstName("Patient" + i)
+                    .lastName("Surname" + i)
+                    .dateOfBirth(LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28))
+                    .biologicalSex(BiologicalSex.values()[i % 4])
+                    .phoneNumber("555-100-" + i)
+                    .address(i + " Main St, Springfield, IL 62701")
+                    .allergies(List.of("Penicillin", "Latex"))
+                    .primaryDoctor(primary)
+                    .build();
+            primary.getPrimaryPatients().add(patient);
+            patients.add(patient);
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 1; i <= appointmentCount; i++) {
+            appointments.add(Appointment.builder()
+                    .id(i)
+                    .patient(patients.get(i % patientCount))
+                    .doctor(doctors.get((i * 7) % doctorCount))
+                    .date(LocalDate.of(2026, 1 + i % 12, 1 + i % 28))
+                    .time(LocalTime.of(8 + i % 9, (i % 4) * 15))
+                    .status(Status.values()[i % 3])
+                    .build());
+        }
+        return appointments;
+    }
+}